@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.util.Assert;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the 64-bit message hashes for at least the duration of the window. The hashes are kept in the current and
+ * the previous generation, which are rotated every window, so the memory is bounded by the two fixed capacity sets.
+ * When the current generation fills up before the window elapses it is rotated early, shortening the window.
+ *
+ * @author Jakub Narloch
+ */
+class DeduplicationWindow {
+
+    private final long windowMillis;
+
+    private final LongSupplier clock;
+
+    private LongHashSet current;
+
+    private LongHashSet previous;
+
+    private long generationStart;
+
+    private long earlyRotations;
+
+    DeduplicationWindow(long windowMillis, int capacity) {
+        this(windowMillis, capacity, System::currentTimeMillis);
+    }
+
+    DeduplicationWindow(long windowMillis, int capacity, LongSupplier clock) {
+        Assert.isTrue(windowMillis > 0, "Parameter 'windowMillis' must be positive.");
+        Assert.notNull(clock, "Parameter 'clock' can not be null.");
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.current = new LongHashSet(capacity);
+        this.previous = new LongHashSet(capacity);
+        this.generationStart = clock.getAsLong();
+    }
+
+    /**
+     * Returns whether the hash has been added within the window.
+     *
+     * @param hash the message hash
+     * @return {@code true} if the hash has been seen within the window
+     */
+    synchronized boolean contains(long hash) {
+        expire(clock.getAsLong());
+        return current.contains(hash) || previous.contains(hash);
+    }
+
+    /**
+     * Adds the hash to the window.
+     *
+     * @param hash the message hash
+     */
+    synchronized void add(long hash) {
+        final long now = clock.getAsLong();
+        expire(now);
+        if (current.contains(hash) || previous.contains(hash)) {
+            return;
+        }
+        if (current.isFull()) {
+            earlyRotations++;
+            rotate(now);
+        }
+        current.add(hash);
+    }
+
+    synchronized long getEarlyRotations() {
+        return earlyRotations;
+    }
+
+    private void expire(long now) {
+        final long elapsed = now - generationStart;
+        if (elapsed >= windowMillis) {
+            rotate(now);
+            if (elapsed >= 2 * windowMillis) {
+                // both generations are stale
+                rotate(now);
+            }
+        }
+    }
+
+    private void rotate(long now) {
+        final LongHashSet expired = previous;
+        expired.clear();
+        previous = current;
+        current = expired;
+        generationStart = now;
+    }
+}
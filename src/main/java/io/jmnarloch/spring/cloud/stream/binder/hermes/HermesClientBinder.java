@@ -15,6 +15,10 @@
  */
 package io.jmnarloch.spring.cloud.stream.binder.hermes;
 
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.ClaimCheck;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.PayloadStore;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesPublishTrace;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesTracer;
 import org.springframework.cloud.stream.binder.AbstractBinder;
 import org.springframework.cloud.stream.binder.Binding;
 import org.springframework.cloud.stream.binder.DefaultBinding;
@@ -22,19 +26,31 @@ import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
 import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
 import org.springframework.cloud.stream.binder.ExtendedPropertiesBinder;
 import org.springframework.http.MediaType;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.endpoint.EventDrivenConsumer;
 import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 import pl.allegro.tech.hermes.client.HermesClient;
 import pl.allegro.tech.hermes.client.HermesMessage;
 import pl.allegro.tech.hermes.client.HermesResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -58,6 +74,18 @@ public class HermesClientBinder
 
     private HermesExtendedBindingProperties hermesExtendedBindingProperties = new HermesExtendedBindingProperties();
 
+    private PayloadStore payloadStore;
+
+    private HermesTracer tracer = HermesTracer.disabled();
+
+    private HermesPublishScheduler publishScheduler = new DirectHermesPublishScheduler();
+
+    private HermesPublishResultDispatcher resultDispatcher;
+
+    private HermesPublishAttempts publishAttempts = new HermesPublishAttempts();
+
+    private HermesMetrics metrics = new HermesMetrics();
+
     public HermesClientBinder(HermesClient hermesClient) {
         Assert.notNull(hermesClient, "Parameter 'hermesClient' can not be null.");
         this.hermesClient = hermesClient;
@@ -74,7 +102,17 @@ public class HermesClientBinder
         Assert.isInstanceOf(SubscribableChannel.class, channel);
 
         logger.debug("Binding Hermes client to topic " + name);
-        final MessageHandler handler = new HermesSendingHandler(name);
+        final HermesProducerProperties producerProperties = getProducerProperties(properties);
+        if (producerProperties.getClaimCheckThreshold() > 0) {
+            Assert.state(payloadStore != null, "The payload store is required to offload the payloads");
+        }
+        final HermesDestinationResolver destinationResolver = createDestinationResolver(name, producerProperties);
+        final HermesMessageDeduplicator deduplicator = producerProperties.getDeduplicationWindow() > 0 ?
+                new HermesMessageDeduplicator(producerProperties) : null;
+        metrics.register(name, destinationResolver, deduplicator);
+        final MessageHandler handler = new HermesSendingHandler(
+                destinationResolver, deduplicator, producerProperties,
+                resolveAckChannel(producerProperties), resolveErrorChannel());
         final EventDrivenConsumer consumer = createConsumer(name, (SubscribableChannel) channel, handler);
         consumer.start();
         return toBinding(name, channel, consumer);
@@ -84,6 +122,34 @@ public class HermesClientBinder
         this.hermesExtendedBindingProperties = hermesExtendedBindingProperties;
     }
 
+    public void setPayloadStore(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
+
+    public void setTracer(HermesTracer tracer) {
+        Assert.notNull(tracer, "Parameter 'tracer' can not be null.");
+        this.tracer = tracer;
+    }
+
+    public void setPublishScheduler(HermesPublishScheduler publishScheduler) {
+        Assert.notNull(publishScheduler, "Parameter 'publishScheduler' can not be null.");
+        this.publishScheduler = publishScheduler;
+    }
+
+    public void setResultDispatcher(HermesPublishResultDispatcher resultDispatcher) {
+        this.resultDispatcher = resultDispatcher;
+    }
+
+    public void setPublishAttempts(HermesPublishAttempts publishAttempts) {
+        Assert.notNull(publishAttempts, "Parameter 'publishAttempts' can not be null.");
+        this.publishAttempts = publishAttempts;
+    }
+
+    public void setMetrics(HermesMetrics metrics) {
+        Assert.notNull(metrics, "Parameter 'metrics' can not be null.");
+        this.metrics = metrics;
+    }
+
     @Override
     public HermesConsumerProperties getExtendedConsumerProperties(String channelName) {
         return hermesExtendedBindingProperties.getExtendedConsumerProperties(channelName);
@@ -94,6 +160,31 @@ public class HermesClientBinder
         return hermesExtendedBindingProperties.getExtendedProducerProperties(channelName);
     }
 
+    private HermesProducerProperties getProducerProperties(ExtendedProducerProperties<HermesProducerProperties> properties) {
+        return properties.getExtension() != null ? properties.getExtension() : new HermesProducerProperties();
+    }
+
+    private HermesDestinationResolver createDestinationResolver(String name, HermesProducerProperties properties) {
+        if (properties.isRoutingEnabled()) {
+            return new RoutingHermesDestinationResolver(name, properties);
+        }
+        return new StaticHermesDestinationResolver(name);
+    }
+
+    private MessageChannel resolveAckChannel(HermesProducerProperties properties) {
+        if (resultDispatcher == null || !StringUtils.hasText(properties.getAckChannel())) {
+            return null;
+        }
+        return new BeanFactoryChannelResolver(getBeanFactory()).resolveDestination(properties.getAckChannel());
+    }
+
+    private MessageChannel resolveErrorChannel() {
+        if (resultDispatcher == null || !getBeanFactory().containsBean(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)) {
+            return null;
+        }
+        return getBeanFactory().getBean(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME, MessageChannel.class);
+    }
+
     private EventDrivenConsumer createConsumer(String name, SubscribableChannel channel, MessageHandler handler) {
         EventDrivenConsumer consumer = new EventDrivenConsumer(channel, handler);
         consumer.setBeanFactory(getBeanFactory());
@@ -108,19 +199,64 @@ public class HermesClientBinder
 
     private class HermesSendingHandler extends AbstractMessageHandler {
 
-        private final String topic;
+        private final HermesDestinationResolver destinationResolver;
+
+        private final HermesProducerProperties properties;
+
+        private final HermesMessageDeduplicator deduplicator;
 
-        HermesSendingHandler(String topic) {
-            Assert.hasLength(topic);
-            this.topic = topic;
+        private final MessageChannel ackChannel;
+
+        private final MessageChannel errorChannel;
+
+        private final boolean trackAttempts;
+
+        HermesSendingHandler(HermesDestinationResolver destinationResolver, HermesMessageDeduplicator deduplicator,
+                             HermesProducerProperties properties, MessageChannel ackChannel,
+                             MessageChannel errorChannel) {
+            Assert.notNull(destinationResolver);
+            Assert.notNull(properties);
+            this.destinationResolver = destinationResolver;
+            this.deduplicator = deduplicator;
+            this.properties = properties;
+            this.ackChannel = ackChannel;
+            this.errorChannel = errorChannel;
+            this.trackAttempts = (ackChannel != null || errorChannel != null) && publishAttempts.isCounting();
+            if ((ackChannel != null || errorChannel != null) && !trackAttempts) {
+                logger.warn("The Hermes client has not been built with HermesPublishAttempts#countingSender, "
+                        + "the publish results will report a single attempt");
+            }
         }
 
         @Override
         protected void handleMessageInternal(Message<?> message) throws Exception {
             validate(message);
-            publish(
-                    buildHermesMessage(message)
-            );
+            final HermesDestination destination = destinationResolver.resolve(message);
+            final String messageId = getMessageId(destination.getTopic(), message);
+            if (messageId != null && deduplicator.isDuplicate(destination.getTopic(), messageId)) {
+                destination.recordDuplicate();
+                logger.debug("Suppressed duplicate message " + messageId + " to Hermes topic " + destination.getTopic());
+                return;
+            }
+            final HermesPublishTrace trace = tracer.start(destination.getTopic(), message);
+            final HermesMessage hermesMessage = buildHermesMessage(destination.getTopic(), message, messageId, trace);
+            if (trace != null) {
+                trace.converted();
+            }
+            publish(destination, message, hermesMessage, messageId, trace);
+        }
+
+        private String getMessageId(String topic, Message<?> message) {
+            if (deduplicator == null) {
+                return null;
+            }
+            return deduplicator.getMessageId(topic, getPayloadAsBytes(message), message);
+        }
+
+        private void commit(String topic, String messageId) {
+            if (messageId != null) {
+                deduplicator.commit(topic, messageId);
+            }
         }
 
         private void validate(Message<?> message) {
@@ -130,32 +266,92 @@ public class HermesClientBinder
             }
         }
 
-        private HermesMessage buildHermesMessage(Message<?> message) {
+        private HermesMessage buildHermesMessage(String topic, Message<?> message, String messageId,
+                                                 HermesPublishTrace trace) throws IOException {
+            final HermesMessage.Builder builder = createHermesMessageBuilder(topic, message);
+            if (messageId != null) {
+                builder.withHeader(deduplicator.getMessageIdHeader(), messageId);
+            }
+            if (trace != null) {
+                trace.propagate(builder::withHeader);
+            }
+            return builder.build();
+        }
+
+        private HermesMessage.Builder createHermesMessageBuilder(String topic, Message<?> message) throws IOException {
             final Optional<MediaType> contentType = getContentType(message)
                     .map(MediaType::parseMediaType);
 
             if (APPLICATION_JSON.isCompatibleWith(contentType.get())) {
-                return HermesMessage.hermesMessage(topic, getPayloadAsBytes(message))
-                        .json()
-                        .build();
+                return HermesMessage.hermesMessage(topic, offloadIfRequired(topic, getPayloadAsBytes(message)))
+                        .json();
             } else if (AVRO_BINARY.isCompatibleWith(contentType.get())) {
                 return HermesMessage.hermesMessage(topic, getPayloadAsBytes(message))
-                        .avro(getSchemaVersion(message))
-                        .build();
+                        .avro(getSchemaVersion(message));
             }
             throw new IllegalStateException("The provided content type is not supported");
         }
 
-        private void publish(HermesMessage message) {
-            hermesClient.publish(message).whenComplete((resp, exc) -> {
-                if (resp.isSuccess()) {
+        private void publish(HermesDestination destination, Message<?> original, HermesMessage message,
+                             String messageId, HermesPublishTrace trace) {
+            if (trackAttempts) {
+                publishAttempts.track(message);
+            }
+            final long start = System.nanoTime();
+            final CompletableFuture<HermesResponse> response;
+            try {
+                response = publishScheduler.submit(properties.getPriority(), () -> {
+                    final CompletableFuture<HermesResponse> result = hermesClient.publish(message);
+                    if (trace != null) {
+                        trace.dispatched();
+                    }
+                    return result;
+                });
+            } catch (RejectedExecutionException e) {
+                if (trackAttempts) {
+                    publishAttempts.complete(message);
+                }
+                tracer.finish(trace, null);
+                destination.recordFailed();
+                dispatch(new HermesPublishResult(destination.getTopic(), original, null, e, 0,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                throw e;
+            }
+            response.whenComplete((resp, exc) -> {
+                tracer.finish(trace, resp);
+                final HermesPublishResult result = new HermesPublishResult(destination.getTopic(), original, resp, exc,
+                        trackAttempts ? publishAttempts.complete(message) : 1,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (result.isSuccess()) {
+                    commit(destination.getTopic(), messageId);
+                    destination.recordPublished();
                     logger.debug("Message published successfully to Hermes");
                 } else {
-                    logError(resp);
+                    destination.recordFailed();
+                    logError(result);
                 }
+                dispatch(result);
             });
         }
 
+        private void dispatch(HermesPublishResult result) {
+            if (result.isSuccess() && ackChannel != null) {
+                resultDispatcher.dispatch(ackChannel, MessageBuilder.withPayload(result).build());
+            } else if (!result.isSuccess() && errorChannel != null) {
+                resultDispatcher.dispatch(errorChannel, new ErrorMessage(new HermesPublishException(result)));
+            }
+        }
+
+        private byte[] offloadIfRequired(String topic, byte[] payload) throws IOException {
+            final long threshold = properties.getClaimCheckThreshold();
+            if (threshold <= 0 || payload == null || payload.length <= threshold) {
+                return payload;
+            }
+            final URI reference = payloadStore.store(topic, Channels.newChannel(new ByteArrayInputStream(payload)));
+            logger.debug("Offloaded payload of " + payload.length + " bytes to " + reference);
+            return new ClaimCheck(reference, payload.length).toEnvelope();
+        }
+
         private int getSchemaVersion(Message<?> message) {
             final Optional<String> schemaVersion = getHeader(message, SCHEMA_VERSION_HEADER);
             if (schemaVersion.isPresent()) {
@@ -185,9 +381,12 @@ public class HermesClientBinder
             return null;
         }
 
-        private void logError(HermesResponse resp) {
-            if (resp.getFailureCause().isPresent()) {
-                logger.error("Failed to publish message to Hermes endpoint", resp.getFailureCause().get());
+        private void logError(HermesPublishResult result) {
+            if (errorChannel != null) {
+                // the failure is delivered to the error channel, which logs it unless the application handles it
+                logger.debug("Failed to publish message to Hermes endpoint: " + result);
+            } else if (result.getFailureCause() != null) {
+                logger.error("Failed to publish message to Hermes endpoint", result.getFailureCause());
             } else {
                 logger.error("Unknown error has occurred when publish message to Hermes endpoint");
             }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A single Hermes topic that the binder publishes to, together with its publish statistics. The statistics are also
+ * recorded into the optional totals, which outlive the destination once it is evicted from the routing cache.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesDestination {
+
+    private final String topic;
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder duplicates = new LongAdder();
+
+    private final HermesDestination totals;
+
+    private volatile long lastAccessTime;
+
+    public HermesDestination(String topic) {
+        this(topic, null);
+    }
+
+    HermesDestination(String topic, HermesDestination totals) {
+        Assert.hasLength(topic, "Parameter 'topic' can not be empty.");
+        this.topic = topic;
+        this.totals = totals;
+        this.lastAccessTime = System.currentTimeMillis();
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    void touch(long now) {
+        // skips the write, and the cache line invalidation, when the destination has been touched within the millisecond
+        if (lastAccessTime != now) {
+            lastAccessTime = now;
+        }
+    }
+
+    void recordPublished() {
+        published.increment();
+        if (totals != null) {
+            totals.recordPublished();
+        }
+    }
+
+    void recordFailed() {
+        failed.increment();
+        if (totals != null) {
+            totals.recordFailed();
+        }
+    }
+
+    void recordDuplicate() {
+        duplicates.increment();
+        if (totals != null) {
+            totals.recordDuplicate();
+        }
+    }
+}
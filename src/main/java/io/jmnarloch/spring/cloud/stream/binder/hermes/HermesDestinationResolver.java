@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.messaging.Message;
+
+import java.util.Collection;
+
+/**
+ * Resolves the Hermes destination for the outgoing message.
+ *
+ * @author Jakub Narloch
+ */
+interface HermesDestinationResolver {
+
+    HermesDestination resolve(Message<?> message);
+
+    /**
+     * Returns the destinations currently cached.
+     */
+    Collection<HermesDestination> getDestinations();
+
+    /**
+     * Returns the statistics of all the destinations resolved over the binding lifetime.
+     */
+    HermesDestination getTotals();
+}
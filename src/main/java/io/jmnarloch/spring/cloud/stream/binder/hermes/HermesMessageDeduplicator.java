@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Suppresses the repeated sends of the same message within the deduplication window. The message is identified by the
+ * message id header, or when absent, by the id derived from the hash of the topic and the payload. The id is only
+ * committed to the window once the message has been published, so a message whose publish is still in flight or has
+ * failed is never suppressed.
+ *
+ * @author Jakub Narloch
+ */
+class HermesMessageDeduplicator {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String messageIdHeader;
+
+    private final DeduplicationWindow window;
+
+    HermesMessageDeduplicator(HermesProducerProperties properties) {
+        Assert.hasLength(properties.getMessageIdHeader(), "Property 'messageIdHeader' can not be empty.");
+        this.messageIdHeader = properties.getMessageIdHeader();
+        this.window = new DeduplicationWindow(properties.getDeduplicationWindow(), properties.getDeduplicationCapacity());
+    }
+
+    String getMessageIdHeader() {
+        return messageIdHeader;
+    }
+
+    String getMessageId(String topic, byte[] payload, Message<?> message) {
+        final Object messageId = message.getHeaders().get(messageIdHeader);
+        if (messageId != null) {
+            return String.valueOf(messageId);
+        }
+        long hash = hash(FNV_OFFSET_BASIS, topic.getBytes(UTF_8));
+        if (payload != null) {
+            hash = hash(hash, payload);
+        }
+        return String.format("%016x", mix(hash));
+    }
+
+    /**
+     * Returns whether the message has already been published to the topic within the window.
+     *
+     * @param topic     the topic
+     * @param messageId the message id
+     * @return {@code true} if the message is a duplicate
+     */
+    boolean isDuplicate(String topic, String messageId) {
+        return window.contains(toKey(topic, messageId));
+    }
+
+    /**
+     * Remembers the published message, so that its repeated sends to the topic are suppressed.
+     *
+     * @param topic     the topic
+     * @param messageId the message id
+     */
+    void commit(String topic, String messageId) {
+        window.add(toKey(topic, messageId));
+    }
+
+    long getEarlyRotations() {
+        return window.getEarlyRotations();
+    }
+
+    private static long toKey(String topic, String messageId) {
+        long hash = hash(FNV_OFFSET_BASIS, topic.getBytes(UTF_8));
+        // the separator keeps the topic and the id boundary unambiguous
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        final long key = mix(hash(hash, messageId.getBytes(UTF_8)));
+        return key != 0 ? key : 1;
+    }
+
+    private static long hash(long hash, byte[] bytes) {
+        for (byte value : bytes) {
+            hash ^= value & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the producer bindings, giving access to the publish statistics of their destinations.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesMetrics {
+
+    private final Map<String, HermesDestinationResolver> bindings = new ConcurrentHashMap<>();
+
+    private final Map<String, HermesMessageDeduplicator> deduplicators = new ConcurrentHashMap<>();
+
+    private volatile HermesPublishResultDispatcher resultDispatcher;
+
+    private volatile HermesPublishScheduler publishScheduler;
+
+    void register(String binding, HermesDestinationResolver destinationResolver,
+                  HermesMessageDeduplicator deduplicator) {
+        Assert.hasLength(binding, "Parameter 'binding' can not be empty.");
+        Assert.notNull(destinationResolver, "Parameter 'destinationResolver' can not be null.");
+        bindings.put(binding, destinationResolver);
+        if (deduplicator != null) {
+            deduplicators.put(binding, deduplicator);
+        } else {
+            deduplicators.remove(binding);
+        }
+    }
+
+    public void setResultDispatcher(HermesPublishResultDispatcher resultDispatcher) {
+        this.resultDispatcher = resultDispatcher;
+    }
+
+    public void setPublishScheduler(HermesPublishScheduler publishScheduler) {
+        this.publishScheduler = publishScheduler;
+    }
+
+    /**
+     * Returns the number of the publishes awaiting in the priority publish scheduler queue.
+     *
+     * @return the number of the queued publishes, zero when the publishes are not queued
+     */
+    public long getQueuedPublishes() {
+        final HermesPublishScheduler publishScheduler = this.publishScheduler;
+        return publishScheduler instanceof PriorityHermesPublishScheduler ?
+                ((PriorityHermesPublishScheduler) publishScheduler).getQueued() : 0;
+    }
+
+    /**
+     * Returns the number of the publishes shed by the priority publish scheduler because its queue was full.
+     *
+     * @return the number of the shed publishes, zero when the publishes are not queued
+     */
+    public long getShedPublishes() {
+        final HermesPublishScheduler publishScheduler = this.publishScheduler;
+        return publishScheduler instanceof PriorityHermesPublishScheduler ?
+                ((PriorityHermesPublishScheduler) publishScheduler).getShed() : 0;
+    }
+
+    /**
+     * Returns the number of the publish results dropped because the result dispatcher queue was full.
+     *
+     * @return the number of the dropped publish results
+     */
+    public long getDroppedResults() {
+        final HermesPublishResultDispatcher resultDispatcher = this.resultDispatcher;
+        return resultDispatcher != null ? resultDispatcher.getDropped() : 0;
+    }
+
+    /**
+     * Returns the destinations currently cached by every producer binding.
+     *
+     * @return the destinations keyed by the binding name
+     */
+    public Map<String, Collection<HermesDestination>> getDestinations() {
+        final Map<String, Collection<HermesDestination>> destinations = new LinkedHashMap<>();
+        bindings.forEach((binding, resolver) -> destinations.put(binding, resolver.getDestinations()));
+        return Collections.unmodifiableMap(destinations);
+    }
+
+    /**
+     * Returns the statistics of every producer binding, including the destinations already evicted from the cache.
+     *
+     * @return the binding totals keyed by the binding name
+     */
+    public Map<String, HermesDestination> getTotals() {
+        final Map<String, HermesDestination> totals = new LinkedHashMap<>();
+        bindings.forEach((binding, resolver) -> totals.put(binding, resolver.getTotals()));
+        return Collections.unmodifiableMap(totals);
+    }
+
+    /**
+     * Returns the number of times the deduplication window of every deduplicating binding filled up and was rotated
+     * before the window elapsed, shortening the deduplication window.
+     *
+     * @return the early rotations keyed by the binding name
+     */
+    public Map<String, Long> getEarlyRotations() {
+        final Map<String, Long> earlyRotations = new LinkedHashMap<>();
+        deduplicators.forEach((binding, deduplicator) -> earlyRotations.put(binding, deduplicator.getEarlyRotations()));
+        return Collections.unmodifiableMap(earlyRotations);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+/**
+ * The priority of the producer binding. The higher priority bindings get the larger share of the Hermes connections
+ * and are the last to be shed when the publish queue saturates.
+ *
+ * @author Jakub Narloch
+ */
+public enum HermesPriority {
+
+    HIGH(8, 1.0),
+
+    NORMAL(4, 0.8),
+
+    LOW(1, 0.5);
+
+    private final int weight;
+
+    private final double shedThreshold;
+
+    HermesPriority(int weight, double shedThreshold) {
+        this.weight = weight;
+        this.shedThreshold = shedThreshold;
+    }
+
+    /**
+     * Returns the number of messages served from this priority lane per scheduling round.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the fraction of the publish queue capacity above which the messages of this priority are shed.
+     */
+    public double getShedThreshold() {
+        return shedThreshold;
+    }
+}
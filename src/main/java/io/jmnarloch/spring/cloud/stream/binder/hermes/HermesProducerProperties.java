@@ -16,6 +16,7 @@
 package io.jmnarloch.spring.cloud.stream.binder.hermes;
 
 import org.springframework.cloud.stream.binder.ProducerProperties;
+import org.springframework.util.StringUtils;
 
 /**
  * Hermes producer properties.
@@ -23,4 +24,151 @@ import org.springframework.cloud.stream.binder.ProducerProperties;
  * @author Jakub Narloch
  */
 public class HermesProducerProperties extends ProducerProperties {
+
+    private static final int DEFAULT_MAX_CACHED_TOPICS = 1000;
+
+    private static final long DEFAULT_TOPIC_IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    private static final String DEFAULT_MESSAGE_ID_HEADER = "Message-Id";
+
+    private static final int DEFAULT_DEDUPLICATION_CAPACITY = 100000;
+
+    /**
+     * The name of the message header that holds the Hermes topic the message should be published to.
+     */
+    private String topicHeader;
+
+    /**
+     * The SpEL expression evaluated against the message that resolves the Hermes topic.
+     */
+    private String topicExpression;
+
+    /**
+     * The maximum number of the routed topics that are being cached.
+     */
+    private int maxCachedTopics = DEFAULT_MAX_CACHED_TOPICS;
+
+    /**
+     * The time in milliseconds after which the unused routed topic is evicted from the cache, must be positive.
+     */
+    private long topicIdleTimeout = DEFAULT_TOPIC_IDLE_TIMEOUT;
+
+    /**
+     * The payload size in bytes above which the payload is offloaded to the payload store and only the claim check
+     * envelope is published, non positive value disables the offloading.
+     */
+    private long claimCheckThreshold;
+
+    /**
+     * The priority of the binding used when scheduling the publishes on the shared Hermes connections.
+     */
+    private HermesPriority priority = HermesPriority.NORMAL;
+
+    /**
+     * The name of the header holding the message id, which is propagated to Hermes. When absent, the message id is
+     * derived from the topic and the payload.
+     */
+    private String messageIdHeader = DEFAULT_MESSAGE_ID_HEADER;
+
+    /**
+     * The time in milliseconds within which the repeated sends of the successfully published message with the same id
+     * are suppressed, non positive value disables the deduplication.
+     */
+    private long deduplicationWindow;
+
+    /**
+     * The maximum number of the message ids remembered per deduplication window. The ids are kept in two generations,
+     * each an array of 8-byte slots sized to the power of two above twice the capacity, so the default capacity takes
+     * 2 x 262144 x 8 bytes, that is 4 MiB per binding or about 42 bytes per id.
+     */
+    private int deduplicationCapacity = DEFAULT_DEDUPLICATION_CAPACITY;
+
+    /**
+     * The name of the channel that receives the {@link HermesPublishResult} of every successful publish.
+     */
+    private String ackChannel;
+
+    public String getTopicHeader() {
+        return topicHeader;
+    }
+
+    public void setTopicHeader(String topicHeader) {
+        this.topicHeader = topicHeader;
+    }
+
+    public String getTopicExpression() {
+        return topicExpression;
+    }
+
+    public void setTopicExpression(String topicExpression) {
+        this.topicExpression = topicExpression;
+    }
+
+    public int getMaxCachedTopics() {
+        return maxCachedTopics;
+    }
+
+    public void setMaxCachedTopics(int maxCachedTopics) {
+        this.maxCachedTopics = maxCachedTopics;
+    }
+
+    public long getTopicIdleTimeout() {
+        return topicIdleTimeout;
+    }
+
+    public void setTopicIdleTimeout(long topicIdleTimeout) {
+        this.topicIdleTimeout = topicIdleTimeout;
+    }
+
+    public long getClaimCheckThreshold() {
+        return claimCheckThreshold;
+    }
+
+    public void setClaimCheckThreshold(long claimCheckThreshold) {
+        this.claimCheckThreshold = claimCheckThreshold;
+    }
+
+    public HermesPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(HermesPriority priority) {
+        this.priority = priority;
+    }
+
+    public String getMessageIdHeader() {
+        return messageIdHeader;
+    }
+
+    public void setMessageIdHeader(String messageIdHeader) {
+        this.messageIdHeader = messageIdHeader;
+    }
+
+    public long getDeduplicationWindow() {
+        return deduplicationWindow;
+    }
+
+    public void setDeduplicationWindow(long deduplicationWindow) {
+        this.deduplicationWindow = deduplicationWindow;
+    }
+
+    public int getDeduplicationCapacity() {
+        return deduplicationCapacity;
+    }
+
+    public void setDeduplicationCapacity(int deduplicationCapacity) {
+        this.deduplicationCapacity = deduplicationCapacity;
+    }
+
+    public String getAckChannel() {
+        return ackChannel;
+    }
+
+    public void setAckChannel(String ackChannel) {
+        this.ackChannel = ackChannel;
+    }
+
+    public boolean isRoutingEnabled() {
+        return StringUtils.hasText(topicHeader) || StringUtils.hasText(topicExpression);
+    }
 }
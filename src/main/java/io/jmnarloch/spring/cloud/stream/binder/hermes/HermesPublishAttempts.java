@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import pl.allegro.tech.hermes.client.HermesMessage;
+import pl.allegro.tech.hermes.client.HermesSender;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the send attempts of the messages being published, including the retries performed by the Hermes client.
+ * The messages are tracked by identity, as the Hermes client passes the same message instance to every attempt.
+ * The counting requires the Hermes client to be built with the {@link #countingSender(HermesSender)}, otherwise every
+ * publish is reported with a single attempt.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishAttempts {
+
+    private final Map<MessageKey, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+    private volatile boolean counting;
+
+    /**
+     * Decorates the sender, so that it counts the attempts of the tracked messages.
+     *
+     * @param sender the sender
+     * @return the counting sender
+     */
+    public HermesSender countingSender(HermesSender sender) {
+        counting = true;
+        return (uri, message) -> {
+            final AtomicInteger counter = attempts.get(new MessageKey(message));
+            if (counter != null) {
+                counter.incrementAndGet();
+            }
+            return sender.send(uri, message);
+        };
+    }
+
+    /**
+     * Returns whether any sender has been decorated to count the attempts.
+     *
+     * @return {@code true} if the attempts are being counted
+     */
+    public boolean isCounting() {
+        return counting;
+    }
+
+    void track(HermesMessage message) {
+        attempts.put(new MessageKey(message), new AtomicInteger());
+    }
+
+    /**
+     * Stops tracking the message.
+     *
+     * @param message the message
+     * @return the number of attempts, at least one
+     */
+    int complete(HermesMessage message) {
+        final AtomicInteger counter = attempts.remove(new MessageKey(message));
+        return counter != null ? Math.max(1, counter.get()) : 1;
+    }
+
+    /**
+     * Compares the messages by identity, as the {@link HermesMessage} does not define the equality.
+     */
+    private static final class MessageKey {
+
+        private final HermesMessage message;
+
+        MessageKey(HermesMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MessageKey && ((MessageKey) other).message == message;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(message);
+        }
+    }
+}
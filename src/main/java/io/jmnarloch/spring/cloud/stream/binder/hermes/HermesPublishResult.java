@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+import pl.allegro.tech.hermes.client.HermesResponse;
+
+/**
+ * The outcome of the message publish to Hermes.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishResult {
+
+    private final String topic;
+
+    private final Message<?> message;
+
+    private final HermesResponse response;
+
+    private final Throwable failureCause;
+
+    private final int attempts;
+
+    private final long latencyMillis;
+
+    HermesPublishResult(String topic, Message<?> message, HermesResponse response, Throwable exception,
+                        int attempts, long latencyMillis) {
+        Assert.notNull(message, "Parameter 'message' can not be null.");
+        this.topic = topic;
+        this.message = message;
+        this.response = response;
+        this.failureCause = exception != null ? exception : getFailureCause(response);
+        this.attempts = attempts;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Returns the original message sent to the bound channel.
+     */
+    public Message<?> getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the Hermes response, or {@code null} if the publish completed exceptionally.
+     */
+    public HermesResponse getResponse() {
+        return response;
+    }
+
+    public Throwable getFailureCause() {
+        return failureCause;
+    }
+
+    /**
+     * Returns the number of the send attempts, including the Hermes client retries, or zero if the publish has been
+     * shed by the publish scheduler before it was sent.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public boolean isSuccess() {
+        return response != null && response.isSuccess() && failureCause == null;
+    }
+
+    private static Throwable getFailureCause(HermesResponse response) {
+        return response != null ? response.getFailureCause().orElse(null) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "HermesPublishResult{topic='" + topic + "', success=" + isSuccess()
+                + ", httpStatus=" + (response != null ? response.getHttpStatus() : null)
+                + ", attempts=" + attempts + ", latencyMillis=" + latencyMillis + "}";
+    }
+}
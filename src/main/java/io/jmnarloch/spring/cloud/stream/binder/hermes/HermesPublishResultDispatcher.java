@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the publish outcomes to the channels from its own bounded pool, so that the slow handlers never stall the
+ * HTTP client threads. When the queue is full the outcomes are dropped and counted, the drops are logged at most once
+ * per {@link #DROP_LOG_INTERVAL_MILLIS} so that the saturated HTTP client threads do not stall on logging.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishResultDispatcher implements AutoCloseable {
+
+    private static final Log logger = LogFactory.getLog(HermesPublishResultDispatcher.class);
+
+    private final ThreadPoolExecutor executor;
+
+    static final long DROP_LOG_INTERVAL_MILLIS = 10000L;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final AtomicLong nextDropLog = new AtomicLong();
+
+    public HermesPublishResultDispatcher(int threads, int queueCapacity) {
+        Assert.isTrue(threads > 0, "Parameter 'threads' must be positive.");
+        Assert.isTrue(queueCapacity > 0, "Parameter 'queueCapacity' must be positive.");
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "hermes-publish-result-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> onDropped());
+    }
+
+    public void dispatch(MessageChannel channel, Message<?> message) {
+        executor.execute(() -> {
+            try {
+                if (!channel.send(message)) {
+                    logger.warn("Failed to deliver Hermes publish result to " + channel);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to deliver Hermes publish result to " + channel, e);
+            }
+        });
+    }
+
+    private void onDropped() {
+        dropped.increment();
+        final long now = System.currentTimeMillis();
+        final long next = nextDropLog.get();
+        if (now >= next && nextDropLog.compareAndSet(next, now + DROP_LOG_INTERVAL_MILLIS)) {
+            logger.warn("Hermes publish result queue is full, dropped " + dropped.sum() + " publish results so far");
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import pl.allegro.tech.hermes.client.HermesResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the publishing of the messages to Hermes.
+ *
+ * @author Jakub Narloch
+ */
+public interface HermesPublishScheduler {
+
+    /**
+     * Schedules the publish.
+     *
+     * @param priority the priority of the binding
+     * @param publish  the publish operation
+     * @return the future Hermes response
+     * @throws RejectedExecutionException if the publish has been shed
+     */
+    CompletableFuture<HermesResponse> submit(HermesPriority priority, Supplier<CompletableFuture<HermesResponse>> publish);
+}
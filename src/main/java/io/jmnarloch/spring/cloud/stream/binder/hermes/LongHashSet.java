@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity open addressing hash set of the primitive, non zero, 64-bit values. The set uses linear probing and
+ * only ever grows until it is cleared, so it does not need the tombstones and it allocates only the single array.
+ *
+ * @author Jakub Narloch
+ */
+class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private final long[] table;
+
+    private final int mask;
+
+    private final int capacity;
+
+    private int size;
+
+    LongHashSet(int capacity) {
+        Assert.isTrue(capacity > 0 && capacity <= 1 << 29, "Parameter 'capacity' is out of range.");
+        // keeps the load factor at most 0.5
+        final int length = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.capacity = capacity;
+    }
+
+    boolean contains(long value) {
+        checkValue(value);
+        for (int index = index(value); ; index = (index + 1) & mask) {
+            final long current = table[index];
+            if (current == EMPTY) {
+                return false;
+            } else if (current == value) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds the value to the set.
+     *
+     * @param value the value
+     * @return {@code true} if the value has been added, {@code false} if it was already present
+     * @throws IllegalStateException if the set is full
+     */
+    boolean add(long value) {
+        checkValue(value);
+        int index = index(value);
+        for (long current = table[index]; current != EMPTY; current = table[index]) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (isFull()) {
+            throw new IllegalStateException("The set is full");
+        }
+        table[index] = value;
+        size++;
+        return true;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    private int index(long value) {
+        return (int) (value ^ (value >>> 32)) & mask;
+    }
+
+    private static void checkValue(long value) {
+        Assert.isTrue(value != EMPTY, "The value can not be zero.");
+    }
+}
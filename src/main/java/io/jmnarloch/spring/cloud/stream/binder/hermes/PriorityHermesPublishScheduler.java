@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+import pl.allegro.tech.hermes.client.HermesResponse;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Queues the publishes per priority and dispatches them from a single thread, limiting the number of the requests in
+ * flight. The lanes are served by weighted round robin, so that the higher priority lanes take the larger share while
+ * the lower priority ones are never starved. Once the queue fills up above the shed threshold of the priority the new
+ * publishes of that priority are rejected, so the low priority traffic is shed first.
+ *
+ * @author Jakub Narloch
+ */
+public class PriorityHermesPublishScheduler implements HermesPublishScheduler, AutoCloseable {
+
+    private static final Log logger = LogFactory.getLog(PriorityHermesPublishScheduler.class);
+
+    private static final HermesPriority[] PRIORITIES = HermesPriority.values();
+
+    private final Map<HermesPriority, Queue<Task>> lanes = new EnumMap<>(HermesPriority.class);
+
+    private final int[] credits = new int[PRIORITIES.length];
+
+    private final int queueCapacity;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Semaphore available = new Semaphore(0);
+
+    private final Semaphore inFlight;
+
+    private final LongAdder shed = new LongAdder();
+
+    private final Thread dispatcher;
+
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running = true;
+
+    public PriorityHermesPublishScheduler(int maxInFlight, int queueCapacity) {
+        Assert.isTrue(maxInFlight > 0, "Parameter 'maxInFlight' must be positive.");
+        Assert.isTrue(queueCapacity > 0, "Parameter 'queueCapacity' must be positive.");
+        this.queueCapacity = queueCapacity;
+        this.inFlight = new Semaphore(maxInFlight);
+        for (HermesPriority priority : PRIORITIES) {
+            lanes.put(priority, new ConcurrentLinkedQueue<>());
+        }
+        resetCredits();
+
+        this.dispatcher = new Thread(this::dispatch, "hermes-publish-scheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public CompletableFuture<HermesResponse> submit(HermesPriority priority, Supplier<CompletableFuture<HermesResponse>> publish) {
+        final int limit = (int) (queueCapacity * priority.getShedThreshold());
+        final Task task = new Task(publish);
+        // the read lock makes the check and the enqueue atomic with respect to close, so no task is left behind
+        closeLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Hermes publish scheduler has been closed");
+            }
+            if (queued.incrementAndGet() > limit) {
+                queued.decrementAndGet();
+                shed.increment();
+                throw new RejectedExecutionException("Hermes publish queue saturated, shedding " + priority + " priority message");
+            }
+            lanes.get(priority).add(task);
+            available.release();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return task.response;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the dispatcher has exited, so the lanes hold every task that has not been dispatched
+        for (Queue<Task> lane : lanes.values()) {
+            Task task;
+            while ((task = lane.poll()) != null) {
+                queued.decrementAndGet();
+                task.response.completeExceptionally(new RejectedExecutionException("Hermes publish scheduler has been closed"));
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                available.acquire();
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                inFlight.release();
+                return;
+            }
+            final Task task = next();
+            queued.decrementAndGet();
+            task.run(inFlight::release);
+        }
+    }
+
+    private Task next() {
+        while (true) {
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                if (credits[i] > 0) {
+                    final Task task = lanes.get(PRIORITIES[i]).poll();
+                    if (task != null) {
+                        credits[i]--;
+                        return task;
+                    }
+                }
+            }
+            // either all non empty lanes used up their credits or the task is not yet visible in its lane
+            resetCredits();
+        }
+    }
+
+    private void resetCredits() {
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            credits[i] = PRIORITIES[i].getWeight();
+        }
+    }
+
+    private static class Task {
+
+        private final Supplier<CompletableFuture<HermesResponse>> publish;
+
+        private final CompletableFuture<HermesResponse> response = new CompletableFuture<>();
+
+        Task(Supplier<CompletableFuture<HermesResponse>> publish) {
+            this.publish = publish;
+        }
+
+        void run(Runnable onComplete) {
+            try {
+                publish.get().whenComplete((resp, exc) -> {
+                    onComplete.run();
+                    if (exc != null) {
+                        response.completeExceptionally(exc);
+                    } else {
+                        response.complete(resp);
+                    }
+                });
+            } catch (Throwable e) {
+                // any failure completes the task, so the single dispatcher thread keeps serving the queue
+                logger.error("Failed to dispatch message to Hermes", e);
+                onComplete.run();
+                response.completeExceptionally(e);
+            }
+        }
+    }
+}
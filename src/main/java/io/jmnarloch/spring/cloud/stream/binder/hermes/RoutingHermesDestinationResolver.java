@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the Hermes topic per message, either from the message header or from the SpEL expression evaluated against
+ * the message, falling back to the default topic of the binding. The resolved destinations are cached in the bounded
+ * concurrent map, so resolving a cached topic takes a single lookup. The destinations that have been idle for longer
+ * than the idle timeout are evicted by the sweep, run by one of the resolving threads at most once per half of the
+ * idle timeout, and when a new topic exceeds the cache capacity the least recently used destination is evicted.
+ *
+ * The statistics of the evicted destinations are kept in the binding totals, so the totals never go backwards, while
+ * a destination resolved again after the eviction starts its own statistics from zero.
+ *
+ * @author Jakub Narloch
+ */
+class RoutingHermesDestinationResolver implements HermesDestinationResolver {
+
+    private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+
+    private final String defaultTopic;
+
+    private final String topicHeader;
+
+    private final Expression topicExpression;
+
+    private final int maxDestinations;
+
+    private final long idleTimeout;
+
+    private final long sweepInterval;
+
+    private final AtomicLong nextSweep;
+
+    private final HermesDestination totals;
+
+    private final Map<String, HermesDestination> destinations = new ConcurrentHashMap<>();
+
+    RoutingHermesDestinationResolver(String defaultTopic, HermesProducerProperties properties) {
+        Assert.hasLength(defaultTopic, "Parameter 'defaultTopic' can not be empty.");
+        Assert.isTrue(properties.getMaxCachedTopics() > 0, "Property 'maxCachedTopics' must be positive.");
+        Assert.isTrue(properties.getTopicIdleTimeout() > 0, "Property 'topicIdleTimeout' must be positive.");
+        this.defaultTopic = defaultTopic;
+        this.topicHeader = properties.getTopicHeader();
+        this.topicExpression = StringUtils.hasText(properties.getTopicExpression()) ?
+                EXPRESSION_PARSER.parseExpression(properties.getTopicExpression()) : null;
+        this.maxDestinations = properties.getMaxCachedTopics();
+        this.idleTimeout = properties.getTopicIdleTimeout();
+        this.sweepInterval = Math.max(1, idleTimeout / 2);
+        this.nextSweep = new AtomicLong(System.currentTimeMillis() + sweepInterval);
+        this.totals = new HermesDestination(defaultTopic);
+    }
+
+    @Override
+    public HermesDestination resolve(Message<?> message) {
+        final String topic = resolveTopic(message);
+        final long now = System.currentTimeMillis();
+        sweepIfDue(now);
+
+        HermesDestination destination = destinations.get(topic);
+        if (destination == null) {
+            destination = destinations.computeIfAbsent(topic, name -> new HermesDestination(name, totals));
+            if (destinations.size() > maxDestinations) {
+                evictEldest(destination);
+            }
+        }
+        destination.touch(now);
+        return destination;
+    }
+
+    @Override
+    public Collection<HermesDestination> getDestinations() {
+        return Collections.unmodifiableCollection(destinations.values());
+    }
+
+    @Override
+    public HermesDestination getTotals() {
+        return totals;
+    }
+
+    private String resolveTopic(Message<?> message) {
+        if (topicHeader != null) {
+            final Object topic = message.getHeaders().get(topicHeader);
+            if (topic != null && StringUtils.hasText(String.valueOf(topic))) {
+                return String.valueOf(topic);
+            }
+        }
+        if (topicExpression != null) {
+            final String topic = topicExpression.getValue(message, String.class);
+            if (StringUtils.hasText(topic)) {
+                return topic;
+            }
+        }
+        return defaultTopic;
+    }
+
+    private void sweepIfDue(long now) {
+        final long due = nextSweep.get();
+        // only the thread that moves the deadline runs the sweep, the others carry on
+        if (now >= due && nextSweep.compareAndSet(due, now + sweepInterval)) {
+            destinations.values().removeIf(destination -> now - destination.getLastAccessTime() > idleTimeout);
+        }
+    }
+
+    private void evictEldest(HermesDestination added) {
+        HermesDestination eldest = null;
+        for (HermesDestination destination : destinations.values()) {
+            if (destination != added
+                    && (eldest == null || destination.getLastAccessTime() < eldest.getLastAccessTime())) {
+                eldest = destination;
+            }
+        }
+        if (eldest != null) {
+            destinations.remove(eldest.getTopic(), eldest);
+        }
+    }
+}
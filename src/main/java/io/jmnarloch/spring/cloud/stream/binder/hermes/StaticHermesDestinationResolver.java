@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.springframework.messaging.Message;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Always resolves the single topic the producer has been bound to.
+ *
+ * @author Jakub Narloch
+ */
+class StaticHermesDestinationResolver implements HermesDestinationResolver {
+
+    private final HermesDestination destination;
+
+    StaticHermesDestinationResolver(String topic) {
+        this.destination = new HermesDestination(topic);
+    }
+
+    @Override
+    public HermesDestination resolve(Message<?> message) {
+        return destination;
+    }
+
+    @Override
+    public Collection<HermesDestination> getDestinations() {
+        return Collections.singletonList(destination);
+    }
+
+    @Override
+    public HermesDestination getTotals() {
+        return destination;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck;
+
+import org.springframework.util.Assert;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The reference envelope published to Hermes instead of the offloaded payload.
+ *
+ * @author Jakub Narloch
+ */
+public final class ClaimCheck {
+
+    private static final String ENVELOPE_TEMPLATE = "{\"claimCheck\":\"%s\",\"size\":%d}";
+
+    private static final Pattern ENVELOPE_PATTERN =
+            Pattern.compile("^\\s*\\{\\s*\"claimCheck\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"size\"\\s*:\\s*(\\d+)\\s*}\\s*$");
+
+    private static final int MAX_ENVELOPE_SIZE = 4096;
+
+    private final URI reference;
+
+    private final long size;
+
+    public ClaimCheck(URI reference, long size) {
+        Assert.notNull(reference, "Parameter 'reference' can not be null.");
+        this.reference = reference;
+        this.size = size;
+    }
+
+    public URI getReference() {
+        return reference;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public byte[] toEnvelope() {
+        return String.format(ENVELOPE_TEMPLATE, reference.toASCIIString(), size).getBytes(UTF_8);
+    }
+
+    /**
+     * Parses the message body as the claim check envelope.
+     *
+     * @param body the message body
+     * @return the claim check or empty if the body is not an envelope, including the envelope shaped bodies with the
+     * malformed reference or size
+     */
+    public static Optional<ClaimCheck> fromEnvelope(byte[] body) {
+        if (body == null || body.length > MAX_ENVELOPE_SIZE) {
+            return Optional.empty();
+        }
+        final Matcher matcher = ENVELOPE_PATTERN.matcher(new String(body, UTF_8));
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ClaimCheck(new URI(matcher.group(1)), Long.parseLong(matcher.group(2))));
+        } catch (URISyntaxException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck;
+
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Optional;
+
+/**
+ * Resolves the claim check envelopes back into the original payloads.
+ *
+ * @author Jakub Narloch
+ */
+public class ClaimCheckResolver {
+
+    private final PayloadStore payloadStore;
+
+    public ClaimCheckResolver(PayloadStore payloadStore) {
+        Assert.notNull(payloadStore, "Parameter 'payloadStore' can not be null.");
+        this.payloadStore = payloadStore;
+    }
+
+    /**
+     * Opens the payload referenced by the message body, or the body itself if it is not a claim check envelope.
+     *
+     * @param body the received message body
+     * @return the payload channel
+     * @throws IOException if the referenced payload could not be read
+     */
+    public ReadableByteChannel resolve(byte[] body) throws IOException {
+        final Optional<ClaimCheck> claimCheck = ClaimCheck.fromEnvelope(body);
+        if (claimCheck.isPresent()) {
+            return payloadStore.open(claimCheck.get().getReference());
+        }
+        return Channels.newChannel(new ByteArrayInputStream(body));
+    }
+
+    /**
+     * Deletes the payload referenced by the message body, once it has been consumed.
+     *
+     * @param body the received message body
+     * @return whether the body was a claim check envelope
+     * @throws IOException if the referenced payload could not be deleted
+     */
+    public boolean delete(byte[] body) throws IOException {
+        final Optional<ClaimCheck> claimCheck = ClaimCheck.fromEnvelope(body);
+        if (claimCheck.isPresent()) {
+            payloadStore.delete(claimCheck.get().getReference());
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the payloads as files in the local directory. The payload is first written into temporary file and
+ * afterwards atomically moved, so the reference never points to partially written payload. The files are named after
+ * random identifiers only, so the topic never becomes part of the path.
+ *
+ * The directory is created with the first stored payload. When the retention is set, the payloads older than the
+ * retention, together with the temporary files left by the interrupted writes, are periodically deleted from the
+ * background thread started along with the directory.
+ *
+ * @author Jakub Narloch
+ */
+public class FileSystemPayloadStore implements PayloadStore, AutoCloseable {
+
+    private static final Log logger = LogFactory.getLog(FileSystemPayloadStore.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final long MIN_SWEEP_INTERVAL = 1000L;
+
+    private final Path directory;
+
+    private final long retention;
+
+    private volatile boolean initialized;
+
+    private ScheduledExecutorService sweeper;
+
+    public FileSystemPayloadStore(Path directory) {
+        this(directory, 0L);
+    }
+
+    public FileSystemPayloadStore(Path directory, long retention) {
+        Assert.notNull(directory, "Parameter 'directory' can not be null.");
+        Assert.isTrue(retention >= 0, "Parameter 'retention' can not be negative.");
+        this.directory = directory.toAbsolutePath().normalize();
+        this.retention = retention;
+    }
+
+    @Override
+    public URI store(String topic, ReadableByteChannel payload) throws IOException {
+        initialize();
+
+        final String name = UUID.randomUUID().toString();
+        final Path target = directory.resolve(name);
+        final Path temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, WRITE)) {
+                copy(payload, channel);
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return target.toUri();
+    }
+
+    @Override
+    public ReadableByteChannel open(URI reference) throws IOException {
+        return FileChannel.open(resolve(reference), READ);
+    }
+
+    @Override
+    public void delete(URI reference) throws IOException {
+        Files.deleteIfExists(resolve(reference));
+    }
+
+    /**
+     * Deletes the payloads and the temporary files that were last modified earlier than the retention ago.
+     *
+     * @return the number of deleted files
+     * @throws IOException if the directory could not be listed
+     */
+    public int sweep() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        final long expiration = System.currentTimeMillis() - retention;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try {
+                    if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() < expiration
+                            && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // the payload has been deleted concurrently
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    private void initialize() throws IOException {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!initialized) {
+                Files.createDirectories(directory);
+                if (retention > 0) {
+                    startSweeper();
+                }
+                initialized = true;
+            }
+        }
+    }
+
+    private void startSweeper() {
+        final long interval = Math.max(MIN_SWEEP_INTERVAL, retention / 10);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "hermes-claim-check-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to delete the expired payloads from " + directory, e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private Path resolve(URI reference) throws IOException {
+        if (!"file".equalsIgnoreCase(reference.getScheme())) {
+            throw new IOException("The reference " + reference + " does not point to the payload store");
+        }
+        final Path path;
+        try {
+            path = Paths.get(reference).normalize();
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException("The reference " + reference + " is not a valid file reference", e);
+        }
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new IOException("The reference " + reference + " does not point to the payload store");
+        }
+        return path;
+    }
+
+    private static void copy(ReadableByteChannel source, FileChannel target) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
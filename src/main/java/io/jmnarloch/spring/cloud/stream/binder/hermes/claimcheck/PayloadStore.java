@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Stores the message payloads that are too large to be published directly to Hermes.
+ *
+ * @author Jakub Narloch
+ */
+public interface PayloadStore {
+
+    /**
+     * Stores the payload read from the given channel.
+     *
+     * @param topic   the topic the payload was meant to be published to
+     * @param payload the payload channel
+     * @return the reference to the stored payload
+     * @throws IOException if the payload could not be stored
+     */
+    URI store(String topic, ReadableByteChannel payload) throws IOException;
+
+    /**
+     * Opens the previously stored payload.
+     *
+     * @param reference the payload reference
+     * @return the payload channel
+     * @throws IOException if the payload could not be read
+     */
+    ReadableByteChannel open(URI reference) throws IOException;
+
+    /**
+     * Deletes the previously stored payload, does nothing if the payload no longer exists.
+     *
+     * @param reference the payload reference
+     * @throws IOException if the payload could not be deleted
+     */
+    void delete(URI reference) throws IOException;
+}
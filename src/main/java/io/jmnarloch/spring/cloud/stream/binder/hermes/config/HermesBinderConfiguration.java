@@ -15,8 +15,17 @@
  */
 package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
 
+import io.jmnarloch.spring.cloud.stream.binder.hermes.DirectHermesPublishScheduler;
 import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesClientBinder;
 import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesExtendedBindingProperties;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesMetrics;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesPublishAttempts;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesPublishResultDispatcher;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesPublishScheduler;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.PriorityHermesPublishScheduler;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.FileSystemPayloadStore;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.PayloadStore;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesTracer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -24,6 +33,8 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.stream.config.ChannelBindingServiceConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.web.client.AsyncRestTemplate;
 import pl.allegro.tech.hermes.client.HermesClient;
 import pl.allegro.tech.hermes.client.HermesClientBuilder;
@@ -31,6 +42,7 @@ import pl.allegro.tech.hermes.client.HermesSender;
 import pl.allegro.tech.hermes.client.restTemplate.RestTemplateHermesSender;
 
 import javax.xml.bind.Binder;
+import java.nio.file.Paths;
 
 /**
  * Configures the Hermes binder.
@@ -41,6 +53,7 @@ import javax.xml.bind.Binder;
 @ConditionalOnMissingBean(Binder.class)
 @EnableConfigurationProperties({HermesBinderProperties.class, HermesExtendedBindingProperties.class})
 @AutoConfigureBefore({ChannelBindingServiceConfiguration.class})
+@Import({HermesTracerConfiguration.class, HermesMetricsConfiguration.class})
 public class HermesBinderConfiguration {
 
     @Autowired
@@ -51,16 +64,58 @@ public class HermesBinderConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public HermesClientBinder hermesClientBinder(HermesClient hermesClient) {
+    public HermesClientBinder hermesClientBinder(HermesClient hermesClient, @Lazy PayloadStore payloadStore,
+                                                 HermesTracer hermesTracer, HermesPublishScheduler publishScheduler,
+                                                 HermesPublishResultDispatcher resultDispatcher,
+                                                 HermesPublishAttempts publishAttempts, HermesMetrics hermesMetrics) {
         HermesClientBinder hermesClientBinder = new HermesClientBinder(hermesClient);
         hermesClientBinder.setHermesExtendedBindingProperties(hermesExtendedBindingProperties);
+        hermesClientBinder.setPayloadStore(payloadStore);
+        hermesClientBinder.setTracer(hermesTracer);
+        hermesClientBinder.setPublishScheduler(publishScheduler);
+        hermesClientBinder.setResultDispatcher(resultDispatcher);
+        hermesClientBinder.setPublishAttempts(publishAttempts);
+        hermesClientBinder.setMetrics(hermesMetrics);
+        hermesMetrics.setResultDispatcher(resultDispatcher);
+        hermesMetrics.setPublishScheduler(publishScheduler);
         return hermesClientBinder;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public HermesClient hermesClient(HermesSender hermesSender) {
-        return HermesClientBuilder.hermesClient(hermesSender)
+    public HermesPublishResultDispatcher hermesPublishResultDispatcher() {
+        return new HermesPublishResultDispatcher(hermesBinderProperties.getResultDispatcherThreads(),
+                hermesBinderProperties.getResultDispatcherQueueCapacity());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HermesPublishAttempts hermesPublishAttempts() {
+        return new HermesPublishAttempts();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HermesPublishScheduler hermesPublishScheduler() {
+        if (hermesBinderProperties.getMaxInFlight() > 0) {
+            return new PriorityHermesPublishScheduler(
+                    hermesBinderProperties.getMaxInFlight(), hermesBinderProperties.getQueueCapacity());
+        }
+        return new DirectHermesPublishScheduler();
+    }
+
+    @Bean
+    @Lazy
+    @ConditionalOnMissingBean
+    public PayloadStore fileSystemPayloadStore() {
+        return new FileSystemPayloadStore(Paths.get(hermesBinderProperties.getClaimCheckLocation()),
+                hermesBinderProperties.getClaimCheckRetention());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HermesClient hermesClient(HermesSender hermesSender, HermesPublishAttempts publishAttempts) {
+        return HermesClientBuilder.hermesClient(publishAttempts.countingSender(hermesSender))
                 .withURI(hermesBinderProperties.getUri())
                 .build();
     }
@@ -15,9 +15,12 @@
  */
 package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
 
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesSpanReporter;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesTracer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.net.URI;
+import java.util.List;
 
 /**
  * Hermes binder properties.
@@ -29,6 +32,57 @@ public class HermesBinderProperties {
 
     private URI uri;
 
+    /**
+     * The directory where the offloaded payloads are stored.
+     */
+    private String claimCheckLocation = System.getProperty("java.io.tmpdir") + "/hermes-claim-check";
+
+    /**
+     * The time in milliseconds after which the offloaded payloads are deleted, 0 keeps them forever.
+     */
+    private long claimCheckRetention = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The fraction of the published messages which latency breakdown is being traced.
+     */
+    private double traceSampleRate = 0.01;
+
+    /**
+     * The publish time in milliseconds above which the traced publish is considered to be slow.
+     */
+    private long slowPublishThreshold = 1000;
+
+    /**
+     * The number of the recent slow publishes being kept.
+     */
+    private int slowPublishBufferSize = 100;
+
+    /**
+     * The maximum number of the traced publishes awaiting to be reported, the spans above the limit are dropped.
+     */
+    private int spanReportQueueCapacity = 1000;
+
+    /**
+     * The maximum number of the concurrent publish requests, non positive value publishes the messages immediately
+     * without prioritizing them.
+     */
+    private int maxInFlight;
+
+    /**
+     * The maximum number of the publishes awaiting to be scheduled.
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * The number of threads delivering the publish results to the ack and error channels.
+     */
+    private int resultDispatcherThreads = 1;
+
+    /**
+     * The maximum number of the publish results awaiting delivery, the results above the limit are dropped.
+     */
+    private int resultDispatcherQueueCapacity = 10000;
+
     public URI getUri() {
         return uri;
     }
@@ -36,4 +90,89 @@ public class HermesBinderProperties {
     public void setUri(URI uri) {
         this.uri = uri;
     }
+
+    public String getClaimCheckLocation() {
+        return claimCheckLocation;
+    }
+
+    public void setClaimCheckLocation(String claimCheckLocation) {
+        this.claimCheckLocation = claimCheckLocation;
+    }
+
+    public long getClaimCheckRetention() {
+        return claimCheckRetention;
+    }
+
+    public void setClaimCheckRetention(long claimCheckRetention) {
+        this.claimCheckRetention = claimCheckRetention;
+    }
+
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    public void setTraceSampleRate(double traceSampleRate) {
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    public long getSlowPublishThreshold() {
+        return slowPublishThreshold;
+    }
+
+    public void setSlowPublishThreshold(long slowPublishThreshold) {
+        this.slowPublishThreshold = slowPublishThreshold;
+    }
+
+    public int getSlowPublishBufferSize() {
+        return slowPublishBufferSize;
+    }
+
+    public void setSlowPublishBufferSize(int slowPublishBufferSize) {
+        this.slowPublishBufferSize = slowPublishBufferSize;
+    }
+
+    public int getSpanReportQueueCapacity() {
+        return spanReportQueueCapacity;
+    }
+
+    public void setSpanReportQueueCapacity(int spanReportQueueCapacity) {
+        this.spanReportQueueCapacity = spanReportQueueCapacity;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getResultDispatcherThreads() {
+        return resultDispatcherThreads;
+    }
+
+    public void setResultDispatcherThreads(int resultDispatcherThreads) {
+        this.resultDispatcherThreads = resultDispatcherThreads;
+    }
+
+    public int getResultDispatcherQueueCapacity() {
+        return resultDispatcherQueueCapacity;
+    }
+
+    public void setResultDispatcherQueueCapacity(int resultDispatcherQueueCapacity) {
+        this.resultDispatcherQueueCapacity = resultDispatcherQueueCapacity;
+    }
+
+    HermesTracer createTracer(List<HermesSpanReporter> spanReporters) {
+        return new HermesTracer(traceSampleRate, slowPublishThreshold, slowPublishBufferSize, spanReporters,
+                spanReportQueueCapacity);
+    }
 }
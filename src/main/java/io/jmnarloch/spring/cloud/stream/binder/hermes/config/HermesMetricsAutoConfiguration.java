@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesMetrics;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.metrics.HermesPublicMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the Hermes publish metrics within the application context, so that they are shared with the binder context
+ * and can be exposed through the actuator.
+ *
+ * @author Jakub Narloch
+ */
+@Configuration
+@Import(HermesMetricsConfiguration.class)
+public class HermesMetricsAutoConfiguration {
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+    protected static class HermesPublicMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public HermesPublicMetrics hermesPublicMetrics(HermesMetrics hermesMetrics) {
+            return new HermesPublicMetrics(hermesMetrics);
+        }
+    }
+}
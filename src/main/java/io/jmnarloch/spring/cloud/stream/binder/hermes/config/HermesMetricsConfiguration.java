@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the Hermes publish metrics, imported by both the application and the binder context so that the binder
+ * context reuses the application metrics whenever they are available.
+ *
+ * @author Jakub Narloch
+ */
+@Configuration
+public class HermesMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HermesMetrics hermesMetrics() {
+        return new HermesMetrics();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesSpanReporter;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesTracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Configures the Hermes publish tracer, imported by both the application and the binder context so that the binder
+ * context reuses the application tracer whenever it is available.
+ *
+ * @author Jakub Narloch
+ */
+@Configuration
+@EnableConfigurationProperties(HermesBinderProperties.class)
+public class HermesTracerConfiguration {
+
+    @Autowired
+    private HermesBinderProperties hermesBinderProperties;
+
+    @Autowired(required = false)
+    private List<HermesSpanReporter> spanReporters;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HermesTracer hermesTracer() {
+        return hermesBinderProperties.createTracer(spanReporters);
+    }
+}
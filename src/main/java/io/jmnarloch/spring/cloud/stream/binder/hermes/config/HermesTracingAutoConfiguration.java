@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.config;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesSlowPublishesEndpoint;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.trace.HermesTracer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the Hermes publish tracer within the application context, so that it is shared with the binder context
+ * and can be exposed through the actuator endpoint.
+ *
+ * @author Jakub Narloch
+ */
+@Configuration
+@Import(HermesTracerConfiguration.class)
+public class HermesTracingAutoConfiguration {
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.AbstractEndpoint")
+    protected static class HermesSlowPublishesEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public HermesSlowPublishesEndpoint hermesSlowPublishesEndpoint(HermesTracer hermesTracer) {
+            return new HermesSlowPublishesEndpoint(hermesTracer);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.metrics;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesDestination;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesMetrics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes the Hermes publish statistics through the actuator metrics. The {@code hermes.<binding>.<statistic>} totals
+ * only ever grow, while the {@code hermes.<binding>.<topic>.<statistic>} are the gauges of the topics currently cached
+ * by the binding, which start from zero when the topic is resolved again after being evicted. The
+ * {@code hermes.<binding>.deduplication.earlyRotations} are exposed for the deduplicating bindings and the
+ * {@code hermes.results.dropped} counts the publish results the result dispatcher could not keep up with, while the
+ * {@code hermes.scheduler.queued} and {@code hermes.scheduler.shed} show the priority publish scheduler queue.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublicMetrics implements PublicMetrics {
+
+    private static final String PREFIX = "hermes.";
+
+    private final HermesMetrics hermesMetrics;
+
+    public HermesPublicMetrics(HermesMetrics hermesMetrics) {
+        Assert.notNull(hermesMetrics, "Parameter 'hermesMetrics' can not be null.");
+        this.hermesMetrics = hermesMetrics;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        hermesMetrics.getTotals().forEach((binding, totals) -> addStatistics(metrics, PREFIX + binding + ".", totals));
+        hermesMetrics.getDestinations().forEach((binding, destinations) -> {
+            for (HermesDestination destination : destinations) {
+                addStatistics(metrics, PREFIX + binding + "." + destination.getTopic() + ".", destination);
+            }
+        });
+        metrics.add(new Metric<>(PREFIX + "results.dropped", hermesMetrics.getDroppedResults()));
+        metrics.add(new Metric<>(PREFIX + "scheduler.queued", hermesMetrics.getQueuedPublishes()));
+        metrics.add(new Metric<>(PREFIX + "scheduler.shed", hermesMetrics.getShedPublishes()));
+        hermesMetrics.getEarlyRotations().forEach((binding, earlyRotations) ->
+                metrics.add(new Metric<>(PREFIX + binding + ".deduplication.earlyRotations", earlyRotations)));
+        return metrics;
+    }
+
+    private static void addStatistics(List<Metric<?>> metrics, String prefix, HermesDestination destination) {
+        metrics.add(new Metric<>(prefix + "published", destination.getPublished()));
+        metrics.add(new Metric<>(prefix + "failed", destination.getFailed()));
+        metrics.add(new Metric<>(prefix + "duplicates", destination.getDuplicates()));
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+import pl.allegro.tech.hermes.client.HermesResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The timings of the single sampled message publish, broken down into the stages:
+ * <ul>
+ * <li>channel - from the message creation until it reached the binder</li>
+ * <li>conversion - building the Hermes message</li>
+ * <li>queue and dispatch - waiting in the publish scheduler queue, when the in flight publishes are limited, and
+ * handing the message to the Hermes client</li>
+ * <li>hermes - awaiting the Hermes response, including acquiring the HTTP connection on the sender thread and the
+ * client retries</li>
+ * </ul>
+ * The asynchronous Hermes senders acquire the HTTP connection only after the message has been handed over, so the
+ * connection wait can not be told apart from the Hermes response time.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishTrace {
+
+    static final String TRACE_ID_HEADER = "X-B3-TraceId";
+
+    static final String SPAN_ID_HEADER = "X-B3-SpanId";
+
+    static final String PARENT_SPAN_ID_HEADER = "X-B3-ParentSpanId";
+
+    static final String SAMPLED_HEADER = "X-B3-Sampled";
+
+    private final String traceId;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final String topic;
+
+    private final long timestamp;
+
+    private final long channelMicros;
+
+    private final long startNanos;
+
+    private long convertedNanos;
+
+    private long dispatchedNanos;
+
+    private long completedNanos;
+
+    private int httpStatus;
+
+    private boolean success;
+
+    HermesPublishTrace(String traceId, String spanId, String parentSpanId, String topic, long timestamp,
+                       long channelMicros, long startNanos) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.topic = topic;
+        this.timestamp = timestamp;
+        this.channelMicros = channelMicros;
+        this.startNanos = startNanos;
+    }
+
+    public void converted() {
+        convertedNanos = System.nanoTime();
+    }
+
+    public void dispatched() {
+        dispatchedNanos = System.nanoTime();
+    }
+
+    void completed(HermesResponse response) {
+        completedNanos = System.nanoTime();
+        if (response != null) {
+            httpStatus = response.getHttpStatus();
+            success = response.isSuccess();
+        }
+    }
+
+    /**
+     * Propagates the trace context as the Hermes request headers.
+     *
+     * @param headers the header consumer
+     */
+    public void propagate(BiConsumer<String, String> headers) {
+        headers.accept(TRACE_ID_HEADER, traceId);
+        headers.accept(SPAN_ID_HEADER, spanId);
+        if (parentSpanId != null) {
+            headers.accept(PARENT_SPAN_ID_HEADER, parentSpanId);
+        }
+        headers.accept(SAMPLED_HEADER, "1");
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getChannelMicros() {
+        return channelMicros;
+    }
+
+    public long getConversionMicros() {
+        return micros(startNanos, convertedNanos);
+    }
+
+    public long getQueueAndDispatchMicros() {
+        return micros(convertedNanos, dispatchedNanos);
+    }
+
+    public long getHermesMicros() {
+        return micros(dispatchedNanos, completedNanos);
+    }
+
+    public long getTotalMicros() {
+        return channelMicros + micros(startNanos, completedNanos);
+    }
+
+    private static long micros(long from, long to) {
+        return to > from ? TimeUnit.NANOSECONDS.toMicros(to - from) : 0;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * Exposes the recent slow Hermes publishes.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesSlowPublishesEndpoint extends AbstractEndpoint<List<HermesPublishTrace>> {
+
+    private static final String ENDPOINT_ID = "hermesSlowPublishes";
+
+    private final HermesTracer tracer;
+
+    public HermesSlowPublishesEndpoint(HermesTracer tracer) {
+        super(ENDPOINT_ID);
+        Assert.notNull(tracer, "Parameter 'tracer' can not be null.");
+        this.tracer = tracer;
+    }
+
+    @Override
+    public List<HermesPublishTrace> invoke() {
+        return tracer.getSlowPublishes();
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+/**
+ * Exports the sampled publish traces as the tracing spans, for instance to Zipkin.
+ *
+ * @author Jakub Narloch
+ */
+@FunctionalInterface
+public interface HermesSpanReporter {
+
+    void report(HermesPublishTrace trace);
+}
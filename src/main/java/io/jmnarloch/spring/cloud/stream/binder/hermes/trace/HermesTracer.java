@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+import pl.allegro.tech.hermes.client.HermesResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samples the published messages and captures their latency breakdown. The messages that have not been sampled cost
+ * only a single random number draw, the sampled ones are reported to the {@link HermesSpanReporter}s and, when slower
+ * than the threshold, kept in the ring of the recent slow publishes. The spans are reported from the dedicated thread
+ * through the bounded queue, so that the slow exporters never stall the HTTP client threads, when the queue is full
+ * the spans are dropped.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesTracer implements AutoCloseable {
+
+    private static final Log logger = LogFactory.getLog(HermesTracer.class);
+
+    private static final String SLEUTH_TRACE_ID_HEADER = "spanTraceId";
+
+    private static final String SLEUTH_SPAN_ID_HEADER = "spanId";
+
+    private final double sampleRate;
+
+    private final long slowThresholdMicros;
+
+    private final SlowPublishBuffer slowPublishes;
+
+    private final List<HermesSpanReporter> reporters;
+
+    private final ThreadPoolExecutor reportExecutor;
+
+    private final LongAdder droppedSpans = new LongAdder();
+
+    public HermesTracer(double sampleRate, long slowThresholdMillis, int slowPublishesCapacity,
+                        List<HermesSpanReporter> reporters, int reportQueueCapacity) {
+        Assert.isTrue(sampleRate >= 0 && sampleRate <= 1, "Parameter 'sampleRate' must be within [0, 1] range.");
+        Assert.isTrue(reportQueueCapacity > 0, "Parameter 'reportQueueCapacity' must be positive.");
+        this.sampleRate = sampleRate;
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+        this.slowPublishes = new SlowPublishBuffer(slowPublishesCapacity);
+        this.reporters = reporters != null ? reporters : Collections.emptyList();
+        this.reportExecutor = this.reporters.isEmpty() ? null : createReportExecutor(reportQueueCapacity);
+    }
+
+    public static HermesTracer disabled() {
+        return new HermesTracer(0, 0, 1, null, 1);
+    }
+
+    /**
+     * Starts the trace of the message publish.
+     *
+     * @param topic   the destination topic
+     * @param message the published message
+     * @return the trace or {@code null} if the message has not been sampled
+     */
+    public HermesPublishTrace start(String topic, Message<?> message) {
+        if (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        final long startNanos = System.nanoTime();
+        final long now = System.currentTimeMillis();
+        final Long timestamp = message.getHeaders().getTimestamp();
+        final long channelMicros = timestamp != null && timestamp <= now ?
+                TimeUnit.MILLISECONDS.toMicros(now - timestamp) : 0;
+
+        final String parentTraceId = getHeader(message.getHeaders(), HermesPublishTrace.TRACE_ID_HEADER, SLEUTH_TRACE_ID_HEADER);
+        final String parentSpanId = getHeader(message.getHeaders(), HermesPublishTrace.SPAN_ID_HEADER, SLEUTH_SPAN_ID_HEADER);
+        final String spanId = nextId();
+        return new HermesPublishTrace(parentTraceId != null ? parentTraceId : spanId, spanId, parentSpanId, topic,
+                now, channelMicros, startNanos);
+    }
+
+    /**
+     * Completes the trace once the Hermes response has been received.
+     *
+     * @param trace    the trace, may be {@code null}
+     * @param response the Hermes response
+     */
+    public void finish(HermesPublishTrace trace, HermesResponse response) {
+        if (trace == null) {
+            return;
+        }
+        trace.completed(response);
+        if (trace.getTotalMicros() >= slowThresholdMicros) {
+            slowPublishes.add(trace);
+        }
+        if (reportExecutor != null) {
+            reportExecutor.execute(() -> report(trace));
+        }
+    }
+
+    public List<HermesPublishTrace> getSlowPublishes() {
+        return slowPublishes.getRecent();
+    }
+
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    @Override
+    public void close() {
+        if (reportExecutor != null) {
+            reportExecutor.shutdown();
+        }
+    }
+
+    private void report(HermesPublishTrace trace) {
+        for (HermesSpanReporter reporter : reporters) {
+            try {
+                reporter.report(trace);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to report Hermes publish span", e);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor createReportExecutor(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "hermes-span-reporter");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> droppedSpans.increment());
+    }
+
+    private static String getHeader(MessageHeaders headers, String name, String alternativeName) {
+        Object value = headers.get(name);
+        if (value == null) {
+            value = headers.get(alternativeName);
+        }
+        return value != null ? String.valueOf(value) : null;
+    }
+
+    private static String nextId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free ring of the most recent slow publishes, the oldest entries are overwritten.
+ *
+ * @author Jakub Narloch
+ */
+class SlowPublishBuffer {
+
+    private final AtomicReferenceArray<HermesPublishTrace> traces;
+
+    private final AtomicLong position = new AtomicLong();
+
+    SlowPublishBuffer(int capacity) {
+        Assert.isTrue(capacity > 0, "Parameter 'capacity' must be positive.");
+        this.traces = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(HermesPublishTrace trace) {
+        traces.set((int) (position.getAndIncrement() % traces.length()), trace);
+    }
+
+    List<HermesPublishTrace> getRecent() {
+        final long end = position.get();
+        final long start = Math.max(0, end - traces.length());
+        final List<HermesPublishTrace> recent = new ArrayList<>((int) (end - start));
+        for (long index = end - 1; index >= start; index--) {
+            final HermesPublishTrace trace = traces.get((int) (index % traces.length()));
+            if (trace != null) {
+                recent.add(trace);
+            }
+        }
+        return recent;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link DeduplicationWindow} class.
+ *
+ * @author Jakub Narloch
+ */
+public class DeduplicationWindowTest {
+
+    private static final long WINDOW = 1000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void shouldRememberHashForTheWindow() {
+
+        // given
+        DeduplicationWindow window = new DeduplicationWindow(WINDOW, 4, clock::get);
+        window.add(1);
+
+        // when
+        clock.set(WINDOW - 1);
+
+        // then
+        assertTrue(window.contains(1));
+        assertFalse(window.contains(2));
+    }
+
+    @Test
+    public void shouldKeepHashInPreviousGenerationAfterRotation() {
+
+        // given
+        DeduplicationWindow window = new DeduplicationWindow(WINDOW, 4, clock::get);
+        window.add(1);
+
+        // when
+        clock.set(WINDOW);
+        boolean containedAfterRotation = window.contains(1);
+        clock.set(2 * WINDOW);
+        boolean containedAfterSecondRotation = window.contains(1);
+
+        // then
+        assertTrue(containedAfterRotation);
+        assertFalse(containedAfterSecondRotation);
+        assertEquals(0, window.getEarlyRotations());
+    }
+
+    @Test
+    public void shouldExpireBothGenerationsAfterTwoWindows() {
+
+        // given
+        DeduplicationWindow window = new DeduplicationWindow(WINDOW, 4, clock::get);
+        window.add(1);
+        clock.set(WINDOW);
+        window.add(2);
+
+        // when
+        clock.set(3 * WINDOW);
+
+        // then
+        assertFalse(window.contains(1));
+        assertFalse(window.contains(2));
+    }
+
+    @Test
+    public void shouldRotateEarlyWhenFull() {
+
+        // given
+        DeduplicationWindow window = new DeduplicationWindow(WINDOW, 2, clock::get);
+        window.add(1);
+        window.add(2);
+
+        // when
+        window.add(3);
+
+        // then
+        assertEquals(1, window.getEarlyRotations());
+        assertTrue(window.contains(1));
+        assertTrue(window.contains(2));
+        assertTrue(window.contains(3));
+
+        // when
+        window.add(4);
+        window.add(5);
+
+        // then
+        assertEquals(2, window.getEarlyRotations());
+        assertFalse(window.contains(1));
+        assertFalse(window.contains(2));
+        assertTrue(window.contains(3));
+        assertTrue(window.contains(4));
+        assertTrue(window.contains(5));
+    }
+
+    @Test
+    public void shouldNotRotateOnRememberedHash() {
+
+        // given
+        DeduplicationWindow window = new DeduplicationWindow(WINDOW, 2, clock::get);
+        window.add(1);
+        window.add(2);
+
+        // when
+        window.add(1);
+        window.add(2);
+
+        // then
+        assertEquals(0, window.getEarlyRotations());
+    }
+}
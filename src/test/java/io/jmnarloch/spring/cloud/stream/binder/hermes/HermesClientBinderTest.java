@@ -15,9 +15,13 @@
  */
 package io.jmnarloch.spring.cloud.stream.binder.hermes;
 
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.ClaimCheck;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck.FileSystemPayloadStore;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
@@ -27,8 +31,12 @@ import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.http.MediaType;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.support.GenericMessage;
 import pl.allegro.tech.hermes.client.HermesClientBuilder;
 import pl.allegro.tech.hermes.client.HermesMessage;
@@ -37,12 +45,22 @@ import pl.allegro.tech.hermes.client.HermesResponseBuilder;
 import pl.allegro.tech.hermes.client.HermesSender;
 
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -60,14 +78,23 @@ public class HermesClientBinderTest {
 
     private static final String MESSAGE = "Hello";
 
+    private static final String TOPIC_HEADER = "hermesTopic";
+
+    private static final String ACK_CHANNEL = "hermesAcks";
+
     @Rule
     public final MockitoRule mockitoRule = MockitoJUnit.rule();
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Mock
     private HermesSender hermesSender;
 
     private HermesClientBinder binder;
 
+    private HermesPublishResultDispatcher resultDispatcher;
+
     @Before
     public void setUp() throws Exception {
 
@@ -80,6 +107,14 @@ public class HermesClientBinderTest {
 
         binder = new HermesClientBinder(HermesClientBuilder.hermesClient(hermesSender).build());
         binder.setApplicationContext(new GenericApplicationContext());
+
+        resultDispatcher = new HermesPublishResultDispatcher(1, 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        resultDispatcher.close();
     }
 
     @Test
@@ -145,6 +180,362 @@ public class HermesClientBinderTest {
         binding.unbind();
     }
 
+    @Test
+    public void shouldRouteMessageByHeader() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicHeader(TOPIC_HEADER);
+
+        ArgumentCaptor<URI> uriCaptor = ArgumentCaptor.forClass(URI.class);
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        Map<String, Object> headers = new HashMap<>(json());
+        headers.put(TOPIC_HEADER, "tenant.events");
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        verify(hermesSender, times(2)).send(uriCaptor.capture(), any(HermesMessage.class));
+
+        assertEquals("http://localhost:8080/topics/tenant.events", uriCaptor.getAllValues().get(0).toString());
+        assertEquals("http://localhost:8080/topics/topic", uriCaptor.getAllValues().get(1).toString());
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldFallBackToDefaultTopicOnEmptyHeader() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicHeader(TOPIC_HEADER);
+
+        ArgumentCaptor<URI> uriCaptor = ArgumentCaptor.forClass(URI.class);
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        Map<String, Object> headers = new HashMap<>(json());
+        headers.put(TOPIC_HEADER, "");
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        verify(hermesSender).send(uriCaptor.capture(), any(HermesMessage.class));
+
+        assertEquals("http://localhost:8080/topics/topic", uriCaptor.getValue().toString());
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldRouteMessageByExpression() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicExpression("'tenant.' + payload.toLowerCase()");
+
+        ArgumentCaptor<URI> uriCaptor = ArgumentCaptor.forClass(URI.class);
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        verify(hermesSender).send(uriCaptor.capture(), any(HermesMessage.class));
+
+        assertEquals("http://localhost:8080/topics/tenant.hello", uriCaptor.getValue().toString());
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldOffloadLargePayload() throws Exception {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setClaimCheckThreshold(2);
+
+        FileSystemPayloadStore payloadStore = new FileSystemPayloadStore(folder.getRoot().toPath());
+        binder.setPayloadStore(payloadStore);
+
+        ArgumentCaptor<HermesMessage> messageCaptor = ArgumentCaptor.forClass(HermesMessage.class);
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        verify(hermesSender).send(any(URI.class), messageCaptor.capture());
+
+        Optional<ClaimCheck> claimCheck = ClaimCheck.fromEnvelope(messageCaptor.getValue().getBody());
+        assertTrue(claimCheck.isPresent());
+        assertEquals(MESSAGE.length(), claimCheck.get().getSize());
+        assertArrayEquals(MESSAGE.getBytes(), Files.readAllBytes(Paths.get(claimCheck.get().getReference())));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldSuppressDuplicateMessage() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setDeduplicationWindow(60000);
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        output.send(new GenericMessage<>("Other", json()));
+        verify(hermesSender, times(2)).send(any(URI.class), any(HermesMessage.class));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldNotSuppressMessageWhilePublishInFlight() {
+
+        // given
+        reset(hermesSender);
+        CompletableFuture<HermesResponse> pending = new CompletableFuture<>();
+        when(hermesSender.send(any(URI.class), any(HermesMessage.class))).thenReturn(pending);
+
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setDeduplicationWindow(60000);
+
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // when
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        output.send(new GenericMessage<>(MESSAGE, json()));
+        pending.complete(HermesResponseBuilder.hermesResponse()
+                .withHttpStatus(201)
+                .build());
+        output.send(new GenericMessage<>(MESSAGE, json()));
+
+        // then
+        verify(hermesSender, times(2)).send(any(URI.class), any(HermesMessage.class));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldNotSuppressSameMessageIdOnDifferentTopics() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setDeduplicationWindow(60000);
+        properties.setTopicHeader(TOPIC_HEADER);
+
+        Map<String, Object> headers = new HashMap<>(json());
+        headers.put("Message-Id", "1");
+        headers.put(TOPIC_HEADER, "tenant.events");
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        headers.put(TOPIC_HEADER, "tenant.audit");
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        verify(hermesSender, times(2)).send(any(URI.class), any(HermesMessage.class));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldResendMessageAfterFailure() {
+
+        // given
+        reset(hermesSender);
+        final HermesResponse response = HermesResponseBuilder.hermesResponse()
+                .withHttpStatus(500)
+                .build();
+
+        when(hermesSender.send(any(URI.class), any(HermesMessage.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setDeduplicationWindow(60000);
+
+        Map<String, Object> headers = new HashMap<>(json());
+        headers.put("Message-Id", "1");
+
+        // when
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        output.send(new GenericMessage<>(MESSAGE, headers));
+        verify(hermesSender, times(8)).send(any(URI.class), any(HermesMessage.class));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldDeliverPublishResultToAckChannel() {
+
+        // given
+        QueueChannel ackChannel = new QueueChannel();
+        HermesClientBinder resultsBinder = createBinderWithResultChannels(ackChannel, new QueueChannel());
+
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setAckChannel(ACK_CHANNEL);
+
+        // when
+        Binding<MessageChannel> binding = resultsBinder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // then
+        GenericMessage<String> message = new GenericMessage<>(MESSAGE, json());
+        output.send(message);
+
+        Message<?> ack = ackChannel.receive(5000);
+        assertNotNull(ack);
+        HermesPublishResult result = (HermesPublishResult) ack.getPayload();
+        assertTrue(result.isSuccess());
+        assertEquals(message, result.getMessage());
+        assertEquals(201, result.getResponse().getHttpStatus());
+        assertEquals(1, result.getAttempts());
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldDeliverPublishFailureToErrorChannel() {
+
+        // given
+        reset(hermesSender);
+        final HermesResponse response = HermesResponseBuilder.hermesResponse()
+                .withHttpStatus(500)
+                .build();
+
+        when(hermesSender.send(any(URI.class), any(HermesMessage.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        QueueChannel errorChannel = new QueueChannel();
+        HermesClientBinder resultsBinder = createBinderWithResultChannels(new QueueChannel(), errorChannel);
+
+        DirectChannel output = new DirectChannel();
+
+        // when
+        Binding<MessageChannel> binding = resultsBinder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(new HermesProducerProperties()));
+
+        // then
+        GenericMessage<String> message = new GenericMessage<>(MESSAGE, json());
+        output.send(message);
+
+        Message<?> error = errorChannel.receive(5000);
+        assertNotNull(error);
+        HermesPublishException exception = (HermesPublishException) error.getPayload();
+        assertEquals(message, exception.getFailedMessage());
+        assertFalse(exception.getResult().isSuccess());
+        assertEquals(500, exception.getResult().getResponse().getHttpStatus());
+        assertEquals(4, exception.getResult().getAttempts());
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldDeliverExceptionalPublishToErrorChannel() {
+
+        // given
+        CompletableFuture<HermesResponse> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IllegalStateException("Connection reset"));
+
+        HermesPublishScheduler publishScheduler = (priority, publish) -> failure;
+        QueueChannel errorChannel = new QueueChannel();
+        HermesClientBinder resultsBinder = createBinderWithResultChannels(new QueueChannel(), errorChannel);
+        resultsBinder.setPublishScheduler(publishScheduler);
+
+        DirectChannel output = new DirectChannel();
+
+        // when
+        Binding<MessageChannel> binding = resultsBinder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(new HermesProducerProperties()));
+
+        // then
+        output.send(new GenericMessage<>(MESSAGE, json()));
+
+        Message<?> error = errorChannel.receive(5000);
+        assertNotNull(error);
+        HermesPublishException exception = (HermesPublishException) error.getPayload();
+        assertNull(exception.getResult().getResponse());
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldDeliverShedPublishToErrorChannel() {
+
+        // given
+        HermesPublishScheduler publishScheduler = (priority, publish) -> {
+            throw new RejectedExecutionException("Hermes publish queue saturated");
+        };
+        QueueChannel errorChannel = new QueueChannel();
+        HermesClientBinder resultsBinder = createBinderWithResultChannels(new QueueChannel(), errorChannel);
+        resultsBinder.setPublishScheduler(publishScheduler);
+
+        DirectChannel output = new DirectChannel();
+
+        // when
+        Binding<MessageChannel> binding = resultsBinder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(new HermesProducerProperties()));
+
+        // then
+        try {
+            output.send(new GenericMessage<>(MESSAGE, json()));
+            fail("Shed publish should have been rejected");
+        } catch (MessagingException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        Message<?> error = errorChannel.receive(5000);
+        assertNotNull(error);
+        HermesPublishException exception = (HermesPublishException) error.getPayload();
+        assertEquals(0, exception.getResult().getAttempts());
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+
+        binding.unbind();
+    }
+
+    private HermesClientBinder createBinderWithResultChannels(MessageChannel ackChannel, MessageChannel errorChannel) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton(ACK_CHANNEL, ackChannel);
+        context.getBeanFactory().registerSingleton(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME, errorChannel);
+
+        HermesPublishAttempts publishAttempts = new HermesPublishAttempts();
+        HermesClientBinder resultsBinder = new HermesClientBinder(
+                HermesClientBuilder.hermesClient(publishAttempts.countingSender(hermesSender)).build());
+        resultsBinder.setApplicationContext(context);
+        resultsBinder.setPublishAttempts(publishAttempts);
+        resultsBinder.setResultDispatcher(resultDispatcher);
+        return resultsBinder;
+    }
+
     private static Map<String, Object> json() {
         return Collections.singletonMap(MessageHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
     }
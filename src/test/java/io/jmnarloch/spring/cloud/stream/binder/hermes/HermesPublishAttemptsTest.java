@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import pl.allegro.tech.hermes.client.HermesMessage;
+import pl.allegro.tech.hermes.client.HermesSender;
+
+import java.net.URI;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link HermesPublishAttempts} class.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishAttemptsTest {
+
+    private static final URI TOPIC_URI = URI.create("http://localhost:8080/topics/topic");
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private HermesSender hermesSender;
+
+    private final HermesPublishAttempts publishAttempts = new HermesPublishAttempts();
+
+    @Test
+    public void shouldCountAttemptsOfTrackedMessage() {
+
+        // given
+        HermesSender sender = publishAttempts.countingSender(hermesSender);
+        HermesMessage message = message();
+        HermesMessage other = message();
+        publishAttempts.track(message);
+
+        // when
+        sender.send(TOPIC_URI, message);
+        sender.send(TOPIC_URI, message);
+        sender.send(TOPIC_URI, other);
+
+        // then
+        assertTrue(publishAttempts.isCounting());
+        assertEquals(2, publishAttempts.complete(message));
+        assertEquals(1, publishAttempts.complete(message));
+    }
+
+    @Test
+    public void shouldReportSingleAttemptWithoutCountingSender() {
+
+        // given
+        HermesMessage message = message();
+        publishAttempts.track(message);
+
+        // when
+        int attempts = publishAttempts.complete(message);
+
+        // then
+        assertFalse(publishAttempts.isCounting());
+        assertEquals(1, attempts);
+    }
+
+    private static HermesMessage message() {
+        return HermesMessage.hermesMessage("topic", "{}".getBytes(UTF_8)).json().build();
+    }
+}
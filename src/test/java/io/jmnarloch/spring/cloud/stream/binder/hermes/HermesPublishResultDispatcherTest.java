@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link HermesPublishResultDispatcher} class.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublishResultDispatcherTest {
+
+    private final CountDownLatch delivering = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final HermesPublishResultDispatcher resultDispatcher = new HermesPublishResultDispatcher(1, 1);
+
+    @After
+    public void tearDown() throws Exception {
+
+        release.countDown();
+        resultDispatcher.close();
+    }
+
+    @Test
+    public void shouldCountDroppedResults() throws Exception {
+
+        // given
+        MessageChannel channel = new MessageChannel() {
+
+            @Override
+            public boolean send(Message<?> message) {
+                return send(message, INDEFINITE_TIMEOUT);
+            }
+
+            @Override
+            public boolean send(Message<?> message, long timeout) {
+                delivering.countDown();
+                try {
+                    return release.await(5, SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        };
+        HermesMetrics metrics = new HermesMetrics();
+        metrics.setResultDispatcher(resultDispatcher);
+
+        resultDispatcher.dispatch(channel, new GenericMessage<>("delivering"));
+        assertTrue(delivering.await(5, SECONDS));
+
+        // when
+        resultDispatcher.dispatch(channel, new GenericMessage<>("queued"));
+        resultDispatcher.dispatch(channel, new GenericMessage<>("dropped"));
+        resultDispatcher.dispatch(channel, new GenericMessage<>("dropped"));
+
+        // then
+        assertEquals(2, resultDispatcher.getDropped());
+        assertEquals(2, metrics.getDroppedResults());
+    }
+}
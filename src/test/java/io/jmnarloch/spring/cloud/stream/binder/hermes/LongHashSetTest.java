@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link LongHashSet} class.
+ *
+ * @author Jakub Narloch
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void shouldAddValues() {
+
+        // given
+        LongHashSet set = new LongHashSet(4);
+
+        // when
+        boolean added = set.add(42);
+        boolean addedAgain = set.add(42);
+
+        // then
+        assertTrue(added);
+        assertFalse(addedAgain);
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(43));
+        assertEquals(1, set.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectValuesAboveCapacity() {
+
+        // given
+        LongHashSet set = new LongHashSet(2);
+        set.add(1);
+        set.add(2);
+
+        // when
+        set.add(3);
+    }
+}
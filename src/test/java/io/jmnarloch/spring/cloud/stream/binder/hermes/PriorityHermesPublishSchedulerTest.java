@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pl.allegro.tech.hermes.client.HermesResponse;
+import pl.allegro.tech.hermes.client.HermesResponseBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link PriorityHermesPublishScheduler} class.
+ *
+ * @author Jakub Narloch
+ */
+public class PriorityHermesPublishSchedulerTest {
+
+    private static final int QUEUE_CAPACITY = 10;
+
+    private final HermesResponse response = HermesResponseBuilder.hermesResponse()
+            .withHttpStatus(201)
+            .build();
+
+    private final CompletableFuture<HermesResponse> blocked = new CompletableFuture<>();
+
+    private final List<HermesPriority> published = new CopyOnWriteArrayList<>();
+
+    private PriorityHermesPublishScheduler scheduler;
+
+    @Before
+    public void setUp() throws Exception {
+
+        scheduler = new PriorityHermesPublishScheduler(1, QUEUE_CAPACITY);
+        scheduler.submit(HermesPriority.NORMAL, () -> blocked);
+        await().atMost(5, SECONDS).until(() -> scheduler.getQueued() == 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        scheduler.close();
+    }
+
+    @Test
+    public void shouldServeHigherPriorityFirstWithoutStarvingLowerPriority() {
+
+        // given
+        submit(HermesPriority.LOW, 2);
+        submit(HermesPriority.HIGH, 9);
+
+        // when
+        blocked.complete(response);
+
+        // then
+        await().atMost(5, SECONDS).until(() -> published.size() == 11);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(HermesPriority.HIGH, published.get(i));
+        }
+        assertEquals(HermesPriority.LOW, published.get(8));
+        assertEquals(HermesPriority.HIGH, published.get(9));
+        assertEquals(HermesPriority.LOW, published.get(10));
+    }
+
+    @Test
+    public void shouldShedLowPriorityFirst() {
+
+        // given
+        submit(HermesPriority.LOW, 5);
+
+        // when
+        try {
+            submit(HermesPriority.LOW, 1);
+            fail("Low priority message should have been shed");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        submit(HermesPriority.HIGH, 5);
+
+        // then
+        HermesMetrics metrics = new HermesMetrics();
+        metrics.setPublishScheduler(scheduler);
+        assertEquals(QUEUE_CAPACITY, scheduler.getQueued());
+        assertEquals(1, scheduler.getShed());
+        assertEquals(QUEUE_CAPACITY, metrics.getQueuedPublishes());
+        assertEquals(1, metrics.getShedPublishes());
+    }
+
+    @Test
+    public void shouldKeepDispatchingAfterPublishError() {
+
+        // given
+        CompletableFuture<HermesResponse> failed = scheduler.submit(HermesPriority.NORMAL, () -> {
+            throw new AssertionError("Publish failed");
+        });
+        submit(HermesPriority.NORMAL, 1);
+
+        // when
+        blocked.complete(response);
+
+        // then
+        await().atMost(5, SECONDS).until(() -> published.size() == 1);
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    @Test
+    public void shouldFailQueuedPublishesOnClose() {
+
+        // given
+        List<CompletableFuture<HermesResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            responses.add(scheduler.submit(HermesPriority.NORMAL, publish(HermesPriority.NORMAL)));
+        }
+
+        // when
+        scheduler.close();
+
+        // then
+        for (CompletableFuture<HermesResponse> response : responses) {
+            assertTrue(response.isCompletedExceptionally());
+        }
+        assertEquals(0, scheduler.getQueued());
+        assertTrue(published.isEmpty());
+        try {
+            submit(HermesPriority.HIGH, 1);
+            fail("Message should have been rejected by the closed scheduler");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(0, scheduler.getQueued());
+        assertEquals(0, scheduler.getShed());
+    }
+
+    @Test
+    public void shouldCompleteEveryPublishSubmittedConcurrentlyWithClose() throws Exception {
+
+        // given
+        List<CompletableFuture<HermesResponse>> responses = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            started.countDown();
+            while (true) {
+                try {
+                    responses.add(scheduler.submit(HermesPriority.HIGH, publish(HermesPriority.HIGH)));
+                } catch (RejectedExecutionException e) {
+                    if (e.getMessage().contains("closed")) {
+                        return;
+                    }
+                }
+            }
+        });
+        producer.start();
+        started.await();
+
+        // when
+        scheduler.close();
+        producer.join();
+
+        // then
+        for (CompletableFuture<HermesResponse> response : responses) {
+            assertTrue(response.isDone());
+        }
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    private void submit(HermesPriority priority, int count) {
+        for (int i = 0; i < count; i++) {
+            scheduler.submit(priority, publish(priority));
+        }
+    }
+
+    private Supplier<CompletableFuture<HermesResponse>> publish(HermesPriority priority) {
+        return () -> {
+            published.add(priority);
+            return CompletableFuture.completedFuture(response);
+        };
+    }
+}
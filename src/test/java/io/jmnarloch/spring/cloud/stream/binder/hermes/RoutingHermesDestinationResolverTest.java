@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes;
+
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Tests the {@link RoutingHermesDestinationResolver} class.
+ *
+ * @author Jakub Narloch
+ */
+public class RoutingHermesDestinationResolverTest {
+
+    private static final String DEFAULT_TOPIC = "topic";
+
+    private static final String TOPIC_HEADER = "hermesTopic";
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTopicAboveCapacity() throws Exception {
+
+        // given
+        HermesProducerProperties properties = properties();
+        properties.setMaxCachedTopics(2);
+        RoutingHermesDestinationResolver resolver = new RoutingHermesDestinationResolver(DEFAULT_TOPIC, properties);
+        resolver.resolve(message("a"));
+        Thread.sleep(5);
+        resolver.resolve(message("b"));
+        Thread.sleep(5);
+        resolver.resolve(message("a"));
+        Thread.sleep(5);
+
+        // when
+        resolver.resolve(message("c"));
+
+        // then
+        assertEquals(topics("a", "c"), topics(resolver));
+    }
+
+    @Test
+    public void shouldEvictIdleTopics() throws Exception {
+
+        // given
+        HermesProducerProperties properties = properties();
+        properties.setTopicIdleTimeout(20);
+        RoutingHermesDestinationResolver resolver = new RoutingHermesDestinationResolver(DEFAULT_TOPIC, properties);
+        resolver.resolve(message("a"));
+
+        // when
+        Thread.sleep(50);
+        resolver.resolve(message("b"));
+
+        // then
+        assertEquals(topics("b"), topics(resolver));
+    }
+
+    @Test
+    public void shouldKeepTotalsOfEvictedTopics() throws Exception {
+
+        // given
+        HermesProducerProperties properties = properties();
+        properties.setMaxCachedTopics(1);
+        RoutingHermesDestinationResolver resolver = new RoutingHermesDestinationResolver(DEFAULT_TOPIC, properties);
+        HermesDestination evicted = resolver.resolve(message("a"));
+        evicted.recordPublished();
+        evicted.recordFailed();
+        Thread.sleep(5);
+        resolver.resolve(message("b")).recordPublished();
+        Thread.sleep(5);
+
+        // when
+        HermesDestination resolvedAgain = resolver.resolve(message("a"));
+
+        // then
+        assertNotSame(evicted, resolvedAgain);
+        assertEquals(0, resolvedAgain.getPublished());
+        assertEquals(2, resolver.getTotals().getPublished());
+        assertEquals(1, resolver.getTotals().getFailed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveIdleTimeout() {
+
+        // given
+        HermesProducerProperties properties = properties();
+        properties.setTopicIdleTimeout(0);
+
+        // when
+        new RoutingHermesDestinationResolver(DEFAULT_TOPIC, properties);
+    }
+
+    private static HermesProducerProperties properties() {
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicHeader(TOPIC_HEADER);
+        return properties;
+    }
+
+    private static Message<String> message(String topic) {
+        return MessageBuilder.withPayload("Hello")
+                .setHeader(TOPIC_HEADER, topic)
+                .build();
+    }
+
+    private static Set<String> topics(String... topics) {
+        return Stream.of(topics).collect(Collectors.toSet());
+    }
+
+    private static Set<String> topics(RoutingHermesDestinationResolver resolver) {
+        return resolver.getDestinations().stream()
+                .map(HermesDestination::getTopic)
+                .collect(Collectors.toSet());
+    }
+}
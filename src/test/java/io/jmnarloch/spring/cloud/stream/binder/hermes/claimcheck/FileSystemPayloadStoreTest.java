@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.claimcheck;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link FileSystemPayloadStore} class.
+ *
+ * @author Jakub Narloch
+ */
+public class FileSystemPayloadStoreTest {
+
+    private static final byte[] PAYLOAD = "{\"id\": 1}".getBytes(UTF_8);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystemPayloadStore payloadStore;
+
+    @Before
+    public void setUp() throws Exception {
+
+        payloadStore = new FileSystemPayloadStore(folder.getRoot().toPath());
+    }
+
+    @Test
+    public void shouldStoreAndOpenPayload() throws Exception {
+
+        // when
+        URI reference = payloadStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+
+        // then
+        assertArrayEquals(PAYLOAD, read(payloadStore.open(reference)));
+    }
+
+    @Test
+    public void shouldResolveClaimCheckEnvelope() throws Exception {
+
+        // given
+        URI reference = payloadStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+        byte[] envelope = new ClaimCheck(reference, PAYLOAD.length).toEnvelope();
+
+        // when
+        Optional<ClaimCheck> claimCheck = ClaimCheck.fromEnvelope(envelope);
+
+        // then
+        assertTrue(claimCheck.isPresent());
+        assertEquals(reference, claimCheck.get().getReference());
+        assertEquals(PAYLOAD.length, claimCheck.get().getSize());
+        assertArrayEquals(PAYLOAD, read(new ClaimCheckResolver(payloadStore).resolve(envelope)));
+    }
+
+    @Test
+    public void shouldResolvePlainPayload() throws Exception {
+
+        // when
+        byte[] payload = read(new ClaimCheckResolver(payloadStore).resolve(PAYLOAD));
+
+        // then
+        assertFalse(ClaimCheck.fromEnvelope(PAYLOAD).isPresent());
+        assertArrayEquals(PAYLOAD, payload);
+    }
+
+    @Test
+    public void shouldCreateDirectoryOnFirstStore() throws Exception {
+
+        // given
+        Path directory = folder.getRoot().toPath().resolve("claim-check");
+        FileSystemPayloadStore lazyStore = new FileSystemPayloadStore(directory);
+        assertFalse(Files.exists(directory));
+
+        // when
+        URI reference = lazyStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+
+        // then
+        assertTrue(Files.isDirectory(directory));
+        assertArrayEquals(PAYLOAD, read(lazyStore.open(reference)));
+    }
+
+    @Test
+    public void shouldNotUseTopicInFileName() throws Exception {
+
+        // when
+        URI reference = payloadStore.store("../../etc/passwd", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+
+        // then
+        Path path = Paths.get(reference);
+        assertEquals(folder.getRoot().toPath().toAbsolutePath().normalize(), path.getParent());
+        assertFalse(path.getFileName().toString().contains("passwd"));
+    }
+
+    @Test
+    public void shouldDeleteClaimCheckPayload() throws Exception {
+
+        // given
+        URI reference = payloadStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+        byte[] envelope = new ClaimCheck(reference, PAYLOAD.length).toEnvelope();
+
+        // when
+        boolean deleted = new ClaimCheckResolver(payloadStore).delete(envelope);
+
+        // then
+        assertTrue(deleted);
+        assertFalse(Files.exists(Paths.get(reference)));
+        assertFalse(new ClaimCheckResolver(payloadStore).delete(PAYLOAD));
+    }
+
+    @Test
+    public void shouldSweepExpiredPayloads() throws Exception {
+
+        // given
+        FileSystemPayloadStore retainingStore = new FileSystemPayloadStore(folder.getRoot().toPath(), 60000L);
+        URI expired = retainingStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+        URI recent = retainingStore.store("topic", Channels.newChannel(new ByteArrayInputStream(PAYLOAD)));
+        Path abandoned = folder.newFile("abandoned.tmp").toPath();
+        FileTime expiration = FileTime.fromMillis(System.currentTimeMillis() - 120000L);
+        Files.setLastModifiedTime(Paths.get(expired), expiration);
+        Files.setLastModifiedTime(abandoned, expiration);
+
+        // when
+        int deleted = retainingStore.sweep();
+
+        // then
+        assertEquals(2, deleted);
+        assertFalse(Files.exists(Paths.get(expired)));
+        assertFalse(Files.exists(abandoned));
+        assertArrayEquals(PAYLOAD, read(retainingStore.open(recent)));
+        retainingStore.close();
+    }
+
+    @Test
+    public void shouldResolveEnvelopeWithMalformedReferenceAsPlainPayload() throws Exception {
+
+        // given
+        byte[] body = "{\"claimCheck\":\"file:/tmp/a b\",\"size\":1}".getBytes(UTF_8);
+
+        // when
+        byte[] payload = read(new ClaimCheckResolver(payloadStore).resolve(body));
+
+        // then
+        assertFalse(ClaimCheck.fromEnvelope(body).isPresent());
+        assertArrayEquals(body, payload);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectNonFileReference() throws Exception {
+
+        // given
+        byte[] envelope = new ClaimCheck(URI.create("http://localhost/payload"), PAYLOAD.length).toEnvelope();
+
+        // when
+        new ClaimCheckResolver(payloadStore).resolve(envelope);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectOpaqueFileReference() throws Exception {
+
+        // when
+        payloadStore.delete(URI.create("file:payload"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectReferenceOutsideOfStore() throws Exception {
+
+        // when
+        payloadStore.open(folder.newFile().getParentFile().getParentFile().toURI());
+    }
+
+    private static byte[] read(ReadableByteChannel channel) throws IOException {
+        try (InputStream input = Channels.newInputStream(channel); ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+}
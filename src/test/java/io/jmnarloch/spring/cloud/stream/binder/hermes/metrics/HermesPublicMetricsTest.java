@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.metrics;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesClientBinder;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesMetrics;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesProducerProperties;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.stream.binder.Binding;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+import pl.allegro.tech.hermes.client.HermesClientBuilder;
+import pl.allegro.tech.hermes.client.HermesMessage;
+import pl.allegro.tech.hermes.client.HermesResponseBuilder;
+import pl.allegro.tech.hermes.client.HermesSender;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the {@link HermesPublicMetrics} class.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesPublicMetricsTest {
+
+    private static final String OUTPUT_NAME = "output";
+
+    private static final String TOPIC_HEADER = "hermesTopic";
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private HermesSender hermesSender;
+
+    private HermesClientBinder binder;
+
+    private HermesPublicMetrics publicMetrics;
+
+    @Before
+    public void setUp() throws Exception {
+
+        when(hermesSender.send(any(URI.class), any(HermesMessage.class))).thenAnswer(invocation -> {
+            final URI uri = (URI) invocation.getArguments()[0];
+            return CompletableFuture.completedFuture(HermesResponseBuilder.hermesResponse()
+                    .withHttpStatus(uri.getPath().endsWith("/broken") ? 400 : 201)
+                    .build());
+        });
+
+        HermesMetrics hermesMetrics = new HermesMetrics();
+        binder = new HermesClientBinder(HermesClientBuilder.hermesClient(hermesSender).build());
+        binder.setApplicationContext(new GenericApplicationContext());
+        binder.setMetrics(hermesMetrics);
+
+        publicMetrics = new HermesPublicMetrics(hermesMetrics);
+    }
+
+    @Test
+    public void shouldExposePerDestinationCounters() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicHeader(TOPIC_HEADER);
+
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // when
+        output.send(new GenericMessage<>("Hello", headers("events")));
+        output.send(new GenericMessage<>("World", headers("events")));
+        output.send(new GenericMessage<>("Hello", headers("broken")));
+
+        // then
+        await().atMost(5, SECONDS).until(() -> Long.valueOf(1L).equals(metrics().get("hermes.output.broken.failed")));
+        Map<String, Number> metrics = metrics();
+        assertEquals(2L, metrics.get("hermes.output.events.published"));
+        assertEquals(0L, metrics.get("hermes.output.events.failed"));
+        assertEquals(0L, metrics.get("hermes.output.broken.published"));
+        assertEquals(2L, metrics.get("hermes.output.published"));
+        assertEquals(1L, metrics.get("hermes.output.failed"));
+
+        binding.unbind();
+    }
+
+    @Test
+    public void shouldExposeDeduplicationCounters() {
+
+        // given
+        DirectChannel output = new DirectChannel();
+        HermesProducerProperties properties = new HermesProducerProperties();
+        properties.setTopicHeader(TOPIC_HEADER);
+        properties.setDeduplicationWindow(60000);
+        properties.setDeduplicationCapacity(2);
+
+        Binding<MessageChannel> binding = binder.bindProducer(
+                OUTPUT_NAME, output, new ExtendedProducerProperties<>(properties));
+
+        // when
+        output.send(new GenericMessage<>("Hello", headers("events")));
+        await().atMost(5, SECONDS).until(() -> Long.valueOf(1L).equals(metrics().get("hermes.output.events.published")));
+        output.send(new GenericMessage<>("Hello", headers("events")));
+        output.send(new GenericMessage<>("World", headers("events")));
+        output.send(new GenericMessage<>("Again", headers("events")));
+
+        // then
+        await().atMost(5, SECONDS).until(() -> Long.valueOf(3L).equals(metrics().get("hermes.output.events.published")));
+        Map<String, Number> metrics = metrics();
+        assertEquals(1L, metrics.get("hermes.output.events.duplicates"));
+        assertEquals(1L, metrics.get("hermes.output.deduplication.earlyRotations"));
+
+        binding.unbind();
+    }
+
+    private Map<String, Number> metrics() {
+        final Map<String, Number> metrics = new HashMap<>();
+        for (Metric<?> metric : publicMetrics.metrics()) {
+            metrics.put(metric.getName(), metric.getValue());
+        }
+        return metrics;
+    }
+
+    private static Map<String, Object> headers(String topic) {
+        final Map<String, Object> headers = new HashMap<>();
+        headers.put(MessageHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        headers.put(TOPIC_HEADER, topic);
+        return headers;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesClientBinder;
+import io.jmnarloch.spring.cloud.stream.binder.hermes.HermesProducerProperties;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.stream.binder.Binding;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.web.client.AsyncRestTemplate;
+import pl.allegro.tech.hermes.client.HermesClientBuilder;
+import pl.allegro.tech.hermes.client.HermesMessage;
+import pl.allegro.tech.hermes.client.HermesResponse;
+import pl.allegro.tech.hermes.client.HermesSender;
+import pl.allegro.tech.hermes.client.restTemplate.RestTemplateHermesSender;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Pushes sustained traffic through the real {@link HermesClientBinder} producer binding towards the
+ * {@link HermesSimulator} and reports the throughput, publish latency percentiles and message loss.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesLoadDriver {
+
+    private static final Log logger = LogFactory.getLog(HermesLoadDriver.class);
+
+    private static final long QUIESCENCE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * The number of retries the Hermes client performs by default.
+     */
+    static final int DEFAULT_RETRIES = 3;
+
+    private final HermesSimulator simulator;
+
+    private String topic = "pl.allegro.load.events";
+
+    private int messages = 10000;
+
+    private int ratePerSecond;
+
+    private int payloadSize = 256;
+
+    private int senderThreads = 32;
+
+    private long timeoutMillis = TimeUnit.SECONDS.toMillis(60);
+
+    private int retries = DEFAULT_RETRIES;
+
+    private HermesProducerProperties producerProperties = new HermesProducerProperties();
+
+    public HermesLoadDriver(HermesSimulator simulator) {
+        Assert.notNull(simulator, "Parameter 'simulator' can not be null.");
+        this.simulator = simulator;
+    }
+
+    public HermesLoadDriver withTopic(String topic) {
+        this.topic = topic;
+        return this;
+    }
+
+    public HermesLoadDriver withMessages(int messages) {
+        this.messages = messages;
+        return this;
+    }
+
+    /**
+     * Limits the rate of the sent messages, non positive value sends the messages as fast as possible.
+     */
+    public HermesLoadDriver withRate(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        return this;
+    }
+
+    public HermesLoadDriver withPayloadSize(int payloadSize) {
+        this.payloadSize = payloadSize;
+        return this;
+    }
+
+    public HermesLoadDriver withSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+        return this;
+    }
+
+    public HermesLoadDriver withTimeout(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets the number of times the Hermes client retries the failed publish.
+     */
+    public HermesLoadDriver withRetries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
+    public HermesLoadDriver withProducerProperties(HermesProducerProperties producerProperties) {
+        this.producerProperties = producerProperties;
+        return this;
+    }
+
+    public HermesLoadReport run() {
+        final ThreadPoolTaskExecutor executor = createExecutor();
+        final TimingHermesSender sender = new TimingHermesSender(
+                new RestTemplateHermesSender(new AsyncRestTemplate(executor)), messages * (retries + 1));
+
+        final HermesClientBinder binder = new HermesClientBinder(HermesClientBuilder.hermesClient(sender)
+                .withURI(simulator.getUri())
+                .withRetries(retries)
+                .build());
+        binder.setApplicationContext(new GenericApplicationContext());
+
+        final DirectChannel channel = new DirectChannel();
+        final Binding<MessageChannel> binding = binder.bindProducer(
+                topic, channel, new ExtendedProducerProperties<>(producerProperties));
+        final long acceptedBefore = simulator.getAccepted(topic);
+        try {
+            final long start = System.nanoTime();
+            send(channel, start);
+            awaitCompletion(sender, start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            final long elapsed = System.nanoTime() - start;
+
+            final HermesLoadReport report = new HermesLoadReport(messages, simulator.getAccepted(topic) - acceptedBefore,
+                    sender.getAttempts(), elapsed, sender.getLatencies());
+            logger.info("Hermes load test finished: " + report);
+            return report;
+        } finally {
+            binding.unbind();
+            executor.shutdown();
+        }
+    }
+
+    private void send(MessageChannel channel, long start) {
+        final byte[] payload = createPayload();
+        final long interval = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        for (int i = 0; i < messages; i++) {
+            if (interval > 0) {
+                final long delay = start + i * interval - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+            }
+            channel.send(MessageBuilder.withPayload(payload)
+                    .setHeader(MessageHeaders.CONTENT_TYPE, "application/json")
+                    .build());
+        }
+    }
+
+    private void awaitCompletion(TimingHermesSender sender, long deadline) {
+        long idleSince = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            final long now = System.nanoTime();
+            if (sender.getInFlight() > 0) {
+                idleSince = now;
+            } else if (now - idleSince >= QUIESCENCE_NANOS) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        logger.warn("Hermes load test timed out with " + sender.getInFlight() + " requests in flight");
+    }
+
+    private byte[] createPayload() {
+        final StringBuilder payload = new StringBuilder("{\"data\":\"");
+        while (payload.length() < payloadSize - 2) {
+            payload.append('x');
+        }
+        return payload.append("\"}").toString().getBytes(UTF_8);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(senderThreads);
+        executor.setMaxPoolSize(senderThreads);
+        executor.setThreadNamePrefix("hermes-load-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static class TimingHermesSender implements HermesSender {
+
+        private final HermesSender delegate;
+
+        private final AtomicLongArray latencies;
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        TimingHermesSender(HermesSender delegate, int capacity) {
+            this.delegate = delegate;
+            this.latencies = new AtomicLongArray(capacity);
+        }
+
+        @Override
+        public CompletableFuture<HermesResponse> send(URI uri, HermesMessage message) {
+            final int attempt = attempts.getAndIncrement();
+            final long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            return delegate.send(uri, message).whenComplete((response, throwable) -> {
+                if (attempt < latencies.length()) {
+                    latencies.set(attempt, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        int getAttempts() {
+            return attempts.get();
+        }
+
+        int getInFlight() {
+            return inFlight.get();
+        }
+
+        long[] getLatencies() {
+            final int recorded = Math.min(attempts.get(), latencies.length());
+            final long[] result = new long[recorded];
+            for (int i = 0; i < recorded; i++) {
+                result[i] = latencies.get(i);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.jmnarloch.spring.cloud.stream.binder.hermes.simulator.HermesSimulatorProfile.profile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link HermesLoadDriver} against the {@link HermesSimulator}.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesLoadDriverTest {
+
+    private static final int MESSAGES = 200;
+
+    private static final int RETRIES = 2;
+
+    /**
+     * Enough retries for no message to fail every attempt under the simulated 10% resets and 5% error bursts.
+     */
+    private static final int RESET_RETRIES = 10;
+
+    private HermesSimulator simulator;
+
+    @Before
+    public void setUp() throws Exception {
+
+        simulator = new HermesSimulator(profile()).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        simulator.close();
+    }
+
+    @Test
+    public void shouldDeliverAllMessages() {
+
+        // given
+        simulator.setProfile(profile().withLatency(LatencyDistribution.uniform(1, 5)));
+
+        // when
+        HermesLoadReport report = new HermesLoadDriver(simulator)
+                .withMessages(MESSAGES)
+                .run();
+
+        // then
+        assertEquals(MESSAGES, report.getSent());
+        assertEquals(MESSAGES, report.getAccepted());
+        assertEquals(0, report.getLost());
+        assertTrue(report.getLatencyPercentile(99) >= report.getLatencyPercentile(50));
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    public void shouldReportLostMessages() {
+
+        // given
+        simulator.setProfile(profile().withErrorRate(1));
+
+        // when
+        HermesLoadReport report = new HermesLoadDriver(simulator)
+                .withMessages(MESSAGES)
+                .withRetries(RETRIES)
+                .run();
+
+        // then
+        assertEquals(MESSAGES, report.getLost());
+        assertEquals(MESSAGES * (RETRIES + 1), report.getAttempts());
+        assertEquals(MESSAGES * (RETRIES + 1), simulator.getFailed());
+    }
+
+    @Test
+    public void shouldRetryAfterConnectionReset() {
+
+        // given
+        simulator.setProfile(profile()
+                .withConnectionResetRate(0.1)
+                .withErrorBursts(0.05, 2));
+
+        // when
+        HermesLoadReport report = new HermesLoadDriver(simulator)
+                .withMessages(MESSAGES)
+                .withRate(1000)
+                .withRetries(RESET_RETRIES)
+                .run();
+
+        // then
+        assertTrue(simulator.getReset() > 0);
+        assertTrue(report.getAttempts() > MESSAGES);
+        assertEquals(simulator.getAccepted() + simulator.getFailed() + simulator.getReset(), report.getAttempts());
+        assertEquals(MESSAGES, report.getAccepted());
+        assertEquals(0, report.getLost());
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of the {@link HermesLoadDriver} run.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesLoadReport {
+
+    private final long sent;
+
+    private final long accepted;
+
+    private final long attempts;
+
+    private final long elapsedNanos;
+
+    private final long[] latenciesMicros;
+
+    HermesLoadReport(long sent, long accepted, long attempts, long elapsedNanos, long[] latenciesMicros) {
+        this.sent = sent;
+        this.accepted = accepted;
+        this.attempts = attempts;
+        this.elapsedNanos = elapsedNanos;
+        this.latenciesMicros = latenciesMicros.clone();
+        Arrays.sort(this.latenciesMicros);
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getLost() {
+        return Math.max(0, sent - accepted);
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos > 0 ? accepted * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns the latency percentile of the single publish attempt.
+     *
+     * @param percentile the percentile within (0, 100] range
+     * @return the latency in microseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (latenciesMicros.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * latenciesMicros.length) - 1;
+        return latenciesMicros[Math.max(0, Math.min(index, latenciesMicros.length - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sent=%d, accepted=%d, lost=%d, attempts=%d, throughput=%.1f msg/s, "
+                        + "latency p50=%dus p90=%dus p99=%dus max=%dus",
+                sent, accepted, getLost(), attempts, getThroughput(),
+                getLatencyPercentile(50), getLatencyPercentile(90), getLatencyPercentile(99),
+                getLatencyPercentile(100));
+    }
+}
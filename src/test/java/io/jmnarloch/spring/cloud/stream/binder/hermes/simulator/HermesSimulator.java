@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embeddable Hermes frontend stub that accepts {@code POST /topics/{topic}} requests. Unlike the plain HTTP stubs the
+ * simulator can reproduce the production behaviour, like the latency distribution, 5xx bursts, slow accepts or
+ * connection resets, and accounts the handled traffic.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesSimulator implements AutoCloseable {
+
+    private static final String TOPICS_PATH = "/topics/";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Map<String, LongAdder> acceptedPerTopic = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder acceptedBytes = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder reset = new LongAdder();
+
+    private final AtomicInteger errorBurstRemaining = new AtomicInteger();
+
+    private volatile HermesSimulatorProfile profile;
+
+    private volatile long startTime;
+
+    public HermesSimulator(HermesSimulatorProfile profile) throws IOException {
+        this(0, profile, 64);
+    }
+
+    public HermesSimulator(int port, HermesSimulatorProfile profile, int workerThreads) throws IOException {
+        Assert.notNull(profile, "Parameter 'profile' can not be null.");
+        this.profile = profile;
+        this.executor = Executors.newFixedThreadPool(workerThreads);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext(TOPICS_PATH, this::handle);
+    }
+
+    public HermesSimulator start() {
+        startTime = System.nanoTime();
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public URI getUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    public void setProfile(HermesSimulatorProfile profile) {
+        Assert.notNull(profile, "Parameter 'profile' can not be null.");
+        this.profile = profile;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getAccepted(String topic) {
+        final LongAdder counter = acceptedPerTopic.get(topic);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public Map<String, LongAdder> getAcceptedPerTopic() {
+        return Collections.unmodifiableMap(acceptedPerTopic);
+    }
+
+    public long getAcceptedBytes() {
+        return acceptedBytes.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getReset() {
+        return reset.sum();
+    }
+
+    public double getThroughput() {
+        final double elapsedSeconds = (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        return elapsedSeconds > 0 ? accepted.sum() / elapsedSeconds : 0;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405);
+                return;
+            }
+            final HermesSimulatorProfile profile = this.profile;
+            final Random random = ThreadLocalRandom.current();
+
+            if (random.nextDouble() < profile.getSlowAcceptRate()) {
+                sleep(profile.getSlowAcceptMillis());
+            }
+            final long size = drain(exchange.getRequestBody());
+
+            if (random.nextDouble() < profile.getConnectionResetRate()) {
+                reset.increment();
+                // closing the exchange before the response headers are sent drops the connection
+                return;
+            }
+            sleep(profile.getLatency().nextMillis(random));
+
+            if (isErrorBurst(profile, random)) {
+                failed.increment();
+                respond(exchange, 503);
+            } else if (random.nextDouble() < profile.getErrorRate()) {
+                failed.increment();
+                respond(exchange, 500);
+            } else {
+                accept(exchange.getRequestURI().getPath().substring(TOPICS_PATH.length()), size);
+                respond(exchange, 201);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isErrorBurst(HermesSimulatorProfile profile, Random random) {
+        if (errorBurstRemaining.getAndUpdate(remaining -> remaining > 0 ? remaining - 1 : 0) > 0) {
+            return true;
+        }
+        if (profile.getErrorBurstLength() > 0 && random.nextDouble() < profile.getErrorBurstRate()) {
+            errorBurstRemaining.set(profile.getErrorBurstLength() - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private void accept(String topic, long size) {
+        accepted.increment();
+        acceptedBytes.add(size);
+        acceptedPerTopic.computeIfAbsent(topic, key -> new LongAdder()).increment();
+    }
+
+    private static long drain(InputStream body) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            size += read;
+        }
+        return size;
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import org.springframework.util.Assert;
+
+/**
+ * Describes the behaviour of the {@link HermesSimulator}.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesSimulatorProfile {
+
+    private LatencyDistribution latency = LatencyDistribution.none();
+
+    private double errorRate;
+
+    private double errorBurstRate;
+
+    private int errorBurstLength;
+
+    private double slowAcceptRate;
+
+    private long slowAcceptMillis;
+
+    private double connectionResetRate;
+
+    private HermesSimulatorProfile() {
+    }
+
+    public static HermesSimulatorProfile profile() {
+        return new HermesSimulatorProfile();
+    }
+
+    public HermesSimulatorProfile withLatency(LatencyDistribution latency) {
+        Assert.notNull(latency, "Parameter 'latency' can not be null.");
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Responds with HTTP 500 to the given fraction of the requests.
+     */
+    public HermesSimulatorProfile withErrorRate(double errorRate) {
+        this.errorRate = probability(errorRate);
+        return this;
+    }
+
+    /**
+     * Starts with the given probability a burst of consecutive HTTP 503 responses.
+     */
+    public HermesSimulatorProfile withErrorBursts(double burstRate, int burstLength) {
+        Assert.isTrue(burstLength > 0, "Parameter 'burstLength' must be positive.");
+        this.errorBurstRate = probability(burstRate);
+        this.errorBurstLength = burstLength;
+        return this;
+    }
+
+    /**
+     * Delays reading the request body of the given fraction of the requests.
+     */
+    public HermesSimulatorProfile withSlowAccept(double slowAcceptRate, long slowAcceptMillis) {
+        this.slowAcceptRate = probability(slowAcceptRate);
+        this.slowAcceptMillis = slowAcceptMillis;
+        return this;
+    }
+
+    /**
+     * Drops the connection without any response for the given fraction of the requests.
+     */
+    public HermesSimulatorProfile withConnectionResetRate(double connectionResetRate) {
+        this.connectionResetRate = probability(connectionResetRate);
+        return this;
+    }
+
+    LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    double getErrorRate() {
+        return errorRate;
+    }
+
+    double getErrorBurstRate() {
+        return errorBurstRate;
+    }
+
+    int getErrorBurstLength() {
+        return errorBurstLength;
+    }
+
+    double getSlowAcceptRate() {
+        return slowAcceptRate;
+    }
+
+    long getSlowAcceptMillis() {
+        return slowAcceptMillis;
+    }
+
+    double getConnectionResetRate() {
+        return connectionResetRate;
+    }
+
+    private static double probability(double value) {
+        Assert.isTrue(value >= 0 && value <= 1, "The probability must be within [0, 1] range.");
+        return value;
+    }
+}
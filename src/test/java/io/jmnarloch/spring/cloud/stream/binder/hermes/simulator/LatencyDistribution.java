@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.simulator;
+
+import java.util.Random;
+
+/**
+ * The distribution of the simulated Hermes response latency.
+ *
+ * @author Jakub Narloch
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Draws the next latency.
+     *
+     * @param random the random source
+     * @return the latency in milliseconds
+     */
+    long nextMillis(Random random);
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Log-normal latency, which resembles the long tail observed on the production Hermes frontends.
+     *
+     * @param medianMillis the median latency
+     * @param sigma        the shape of the tail
+     * @return the latency distribution
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        final double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jmnarloch.spring.cloud.stream.binder.hermes.trace;
+
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import pl.allegro.tech.hermes.client.HermesResponse;
+import pl.allegro.tech.hermes.client.HermesResponseBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link HermesTracer} class.
+ *
+ * @author Jakub Narloch
+ */
+public class HermesTracerTest {
+
+    private static final String TOPIC = "topic";
+
+    private static final String TRACE_ID = "463ac35c9f6413ad";
+
+    private static final String SPAN_ID = "a2fb4a1d1a96d312";
+
+    private final HermesResponse response = HermesResponseBuilder.hermesResponse()
+            .withHttpStatus(201)
+            .build();
+
+    @Test
+    public void shouldNotSampleWhenDisabled() {
+
+        // given
+        HermesTracer tracer = HermesTracer.disabled();
+
+        // when
+        HermesPublishTrace trace = tracer.start(TOPIC, MessageBuilder.withPayload("").build());
+
+        // then
+        assertNull(trace);
+    }
+
+    @Test
+    public void shouldPropagateTraceContext() {
+
+        // given
+        HermesTracer tracer = new HermesTracer(1, 1000, 10, null, 10);
+        Message<String> message = MessageBuilder.withPayload("")
+                .setHeader("X-B3-TraceId", TRACE_ID)
+                .setHeader("X-B3-SpanId", SPAN_ID)
+                .build();
+
+        // when
+        HermesPublishTrace trace = tracer.start(TOPIC, message);
+        Map<String, String> headers = new HashMap<>();
+        trace.propagate(headers::put);
+
+        // then
+        assertEquals(TRACE_ID, headers.get("X-B3-TraceId"));
+        assertEquals(SPAN_ID, headers.get("X-B3-ParentSpanId"));
+        assertEquals(trace.getSpanId(), headers.get("X-B3-SpanId"));
+        assertEquals("1", headers.get("X-B3-Sampled"));
+    }
+
+    @Test
+    public void shouldReportSpansAndRecordSlowPublishes() {
+
+        // given
+        List<HermesPublishTrace> reported = new CopyOnWriteArrayList<>();
+        HermesTracer tracer = new HermesTracer(1, 0, 2, Collections.singletonList(reported::add), 10);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            HermesPublishTrace trace = tracer.start(TOPIC, MessageBuilder.withPayload("").build());
+            assertNotNull(trace);
+            trace.converted();
+            trace.dispatched();
+            tracer.finish(trace, response);
+        }
+
+        // then
+        await().atMost(5, SECONDS).until(() -> reported.size() == 3);
+        assertEquals(2, tracer.getSlowPublishes().size());
+        assertEquals(reported.get(2), tracer.getSlowPublishes().get(0));
+        assertEquals(201, tracer.getSlowPublishes().get(0).getHttpStatus());
+        assertTrue(tracer.getSlowPublishes().get(0).isSuccess());
+        tracer.close();
+    }
+
+    @Test
+    public void shouldNotBlockOnSlowReporter() throws Exception {
+
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        HermesTracer tracer = new HermesTracer(1, 1000, 10, Collections.singletonList(trace -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 1);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            HermesPublishTrace trace = tracer.start(TOPIC, MessageBuilder.withPayload("").build());
+            tracer.finish(trace, response);
+        }
+
+        // then
+        // one span is being reported, one is queued and the last one is dropped
+        assertEquals(1, tracer.getDroppedSpans());
+        release.countDown();
+        tracer.close();
+    }
+}